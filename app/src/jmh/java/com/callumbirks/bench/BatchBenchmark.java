@@ -0,0 +1,115 @@
+package com.callumbirks.bench;
+
+import com.callumbirks.pathfinder.Algorithm;
+import com.callumbirks.pathfinder.BatchPathfinder;
+import com.callumbirks.pathfinder.Grid;
+import com.callumbirks.pathfinder.GridPathfinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Measures the throughput of path queries, in queries per millisecond, answered one at a time by
+    GridAStar against BatchPathfinder on one thread and on the common pool. Half of the queries are
+    from a few shared cells to random cells (as with the distance from many cells to the food,
+    reversed), and half are between random cells.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BatchBenchmark {
+    // The number of queries in each batch
+    private static final int QUERIES = 1024;
+    // The number of cells the shared queries start from
+    private static final int SOURCES = 8;
+
+    @Param({ "200x200" })
+    public String size;
+
+    @Param({ "EMPTY", "MAZE", "SNAKE" })
+    public Layout layout;
+
+    private GridPathfinder sequential;
+    private BatchPathfinder serial;
+    private BatchPathfinder parallel;
+    private ForkJoinPool single;
+    private int[] queries;
+
+    @Setup
+    public void setUp() {
+        int[] dimensions = Layout.parseSize(size);
+        sequential = (GridPathfinder) Algorithm.GRID_ASTAR.create(dimensions[0], dimensions[1]);
+        layout.apply(sequential, dimensions[0], dimensions[1]);
+        Grid frozen = sequential.getGrid().copy().freeze();
+        single = new ForkJoinPool(1);
+        serial = new BatchPathfinder(frozen, single);
+        parallel = new BatchPathfinder(frozen);
+
+        Random rand = new Random(42);
+        int[] sources = new int[SOURCES];
+        for(int i = 0; i < SOURCES; i++)
+            sources[i] = freeCell(frozen, rand);
+        queries = new int[2 * QUERIES];
+        for(int i = 0; i < QUERIES; i++) {
+            queries[2 * i] = i % 2 == 0 ? sources[rand.nextInt(SOURCES)] : freeCell(frozen, rand);
+            queries[2 * i + 1] = freeCell(frozen, rand);
+        }
+    }
+
+    // Pick a random cell of the grid which is not a wall
+    private static int freeCell(Grid grid, Random rand) {
+        int cell;
+        do {
+            cell = rand.nextInt(grid.getSize());
+        } while(grid.isWall(cell));
+        return cell;
+    }
+
+    @TearDown
+    public void tearDown() {
+        single.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int sequential() {
+        Grid grid = sequential.getGrid();
+        int total = 0;
+        for(int i = 0; i < QUERIES; i++) {
+            sequential.setStart(grid.getX(queries[2 * i]), grid.getY(queries[2 * i]));
+            sequential.setEnd(grid.getX(queries[2 * i + 1]), grid.getY(queries[2 * i + 1]));
+            if(sequential.run())
+                total += sequential.getPath().size();
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int[] batchSingleThread() {
+        return serial.distances(queries);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int[] batchParallel() {
+        return parallel.distances(queries);
+    }
+}
@@ -0,0 +1,61 @@
+package com.callumbirks.bench;
+
+import com.callumbirks.pathfinder.Algorithm;
+import com.callumbirks.snake.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Measures Game.step() end to end, planning included. When a game ends a new one is started from
+    the next seed, so the measurement covers snakes of every length over the course of a game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GameBenchmark {
+    @Param({ "40x25", "200x200" })
+    public String size;
+
+    @Param({ "ASTAR", "GRID_ASTAR", "SPARSE_ASTAR", "ALT_ASTAR", "JPS", "HIERARCHICAL", "BIDIRECTIONAL", "FLOOD", "DSTAR_LITE", "HAMILTONIAN" })
+    public Algorithm algorithm;
+
+    private int width;
+    private int height;
+    private long seed = 0;
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        int[] dimensions = Layout.parseSize(size);
+        width = dimensions[0];
+        height = dimensions[1];
+        newGame();
+    }
+
+    @Benchmark
+    public Game step() {
+        if(game.over() || game.isBoardFull())
+            newGame();
+        game.step();
+        return game;
+    }
+
+    private void newGame() {
+        game = new Game(width, height, algorithm, seed++);
+        game.updatePath();
+    }
+}
@@ -0,0 +1,85 @@
+package com.callumbirks.bench;
+
+import com.callumbirks.pathfinder.Algorithm;
+import com.callumbirks.pathfinder.Pathfinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Compares HPA* against flat A* (GridAStar, as AStar takes minutes per search on the largest boards)
+    on large boards, searching from the top left to the bottom right corner as PathfinderBenchmark
+    does. HPA* paths are not always the shortest, so the length of its path against the shortest is
+    printed when each trial is set up. 'replan' measures a search after a wall has been set in the
+    middle of the board, which rebuilds the clusters around it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HierarchicalBenchmark {
+    @Param({ "200x200", "2000x2000" })
+    public String size;
+
+    @Param({ "EMPTY", "MAZE", "SNAKE" })
+    public Layout layout;
+
+    private Pathfinder flat;
+    private Pathfinder hierarchical;
+    // The cell in the middle of the board which 'replan' sets again
+    private int middleX;
+    private int middleY;
+
+    @Setup
+    public void setUp() {
+        int[] dimensions = Layout.parseSize(size);
+        flat = create(Algorithm.GRID_ASTAR, dimensions);
+        hierarchical = create(Algorithm.HIERARCHICAL, dimensions);
+        middleX = dimensions[0] / 2;
+        middleY = dimensions[1] / 2;
+        int shortest = flat.getPath().size() - 1;
+        int found = hierarchical.getPath().size() - 1;
+        System.out.printf("%s %s: HPA* path %d moves, flat A* path %d moves, %.2f%% longer%n",
+                size, layout, found, shortest, 100.0 * (found - shortest) / shortest);
+    }
+
+    // Create the given engine, lay out the board and run the first search, which builds any tables it keeps
+    private Pathfinder create(Algorithm algorithm, int[] dimensions) {
+        Pathfinder pathfinder = algorithm.create(dimensions[0], dimensions[1]);
+        layout.apply(pathfinder, dimensions[0], dimensions[1]);
+        pathfinder.setStart(0, 0);
+        pathfinder.setEnd(dimensions[0] - 1, dimensions[1] - 1);
+        if(!pathfinder.run())
+            throw new IllegalStateException(layout + " has no path at " + size);
+        return pathfinder;
+    }
+
+    @Benchmark
+    public boolean flat() {
+        return flat.run();
+    }
+
+    @Benchmark
+    public boolean hierarchical() {
+        return hierarchical.run();
+    }
+
+    // Set the middle cell to what it already is, so the board is unchanged but its clusters are rebuilt
+    @Benchmark
+    public boolean replan() {
+        hierarchical.setWall(middleX, middleY, hierarchical.isWall(middleX, middleY));
+        return hierarchical.run();
+    }
+}
@@ -0,0 +1,91 @@
+package com.callumbirks.bench;
+
+import com.callumbirks.pathfinder.Pathfinder;
+
+import java.util.Random;
+
+/*
+    The obstacle layouts used by the benchmarks. Every layout leaves the top left and bottom right
+    cells free and connected, so that a search between them always succeeds.
+ */
+public enum Layout {
+    // No walls at all
+    EMPTY {
+        @Override
+        void apply(Pathfinder pathfinder, int width, int height) {
+        }
+    },
+    // A perfect maze carved by a depth first search over the cells with even co-ordinates
+    MAZE {
+        @Override
+        void apply(Pathfinder pathfinder, int width, int height) {
+            boolean[] open = new boolean[width * height];
+            int cellsX = (width + 1) / 2;
+            int cellsY = (height + 1) / 2;
+            boolean[] carved = new boolean[cellsX * cellsY];
+            int[] stack = new int[cellsX * cellsY];
+            int size = 0;
+            Random rand = new Random(SEED);
+            int[] options = new int[4];
+            stack[size++] = 0;
+            carved[0] = true;
+            open[0] = true;
+            while(size > 0) {
+                int cell = stack[size - 1];
+                int cx = cell % cellsX;
+                int cy = cell / cellsX;
+                int count = 0;
+                if(cy > 0 && !carved[cell - cellsX]) options[count++] = cell - cellsX;
+                if(cx < cellsX - 1 && !carved[cell + 1]) options[count++] = cell + 1;
+                if(cy < cellsY - 1 && !carved[cell + cellsX]) options[count++] = cell + cellsX;
+                if(cx > 0 && !carved[cell - 1]) options[count++] = cell - 1;
+                if(count == 0) {
+                    size--;
+                    continue;
+                }
+                int next = options[rand.nextInt(count)];
+                int nx = next % cellsX;
+                int ny = next / cellsX;
+                // Open the next cell and the wall between it and the current cell
+                open[(2 * ny) * width + 2 * nx] = true;
+                open[(cy + ny) * width + cx + nx] = true;
+                carved[next] = true;
+                stack[size++] = next;
+            }
+            // With an even width or height the last column or row is not carved, so open it fully
+            if(width % 2 == 0)
+                for(int y = 0; y < height; y++) open[y * width + width - 1] = true;
+            if(height % 2 == 0)
+                for(int x = 0; x < width; x++) open[(height - 1) * width + x] = true;
+            for(int y = 0; y < height; y++)
+                for(int x = 0; x < width; x++)
+                    if(!open[y * width + x]) pathfinder.setWall(x, y, true);
+        }
+    },
+    /*
+        A long snake folded back and forth across the board, a wall on every fourth column with a
+        gap at alternating ends, so the path has to wind along the whole body.
+     */
+    SNAKE {
+        @Override
+        void apply(Pathfinder pathfinder, int width, int height) {
+            for(int x = 2, fold = 0; x < width - 1; x += 4, fold++) {
+                int gap = fold % 2 == 0 ? height - 1 : 0;
+                for(int y = 0; y < height; y++)
+                    if(y != gap) pathfinder.setWall(x, y, true);
+            }
+        }
+    };
+
+    // The seed for layouts with randomness, so every run benchmarks the same board
+    private static final long SEED = 42;
+
+    // Set the walls of this layout on a pathfinder with a grid of the given width and height
+    abstract void apply(Pathfinder pathfinder, int width, int height);
+
+    // Parse a board size of the form "WIDTHxHEIGHT" into { width, height }
+    static int[] parseSize(String size) {
+        String[] parts = size.split("x");
+        return new int[] { Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) };
+    }
+}
@@ -0,0 +1,160 @@
+package com.callumbirks.bench;
+
+import com.callumbirks.pathfinder.Grid;
+import com.callumbirks.pathfinder.GridAStar;
+import com.callumbirks.pathfinder.GridPathfinder;
+import com.callumbirks.pathfinder.HierarchicalAStar;
+import com.callumbirks.pathfinder.JumpPointSearch;
+import com.callumbirks.pathfinder.MapFile;
+import com.callumbirks.pathfinder.MovingAiFormat;
+import com.callumbirks.pathfinder.Scenario;
+import com.callumbirks.pathfinder.SparseAStar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Measures loading a board from a binary MapFile against importing it from a Moving AI .map file,
+    and running every query of a Moving AI .scen file with each engine. A benchmark set is given
+    with -Dsnake.map=<file.map> -Dsnake.scen=<file.scen>, otherwise a 2000x2000 MAZE board and 32
+    queries on it, each to a random cell within RADIUS of its start, are written out as a set first,
+    so the benchmark runs on its own. Even then the paths of a perfect maze wind a long way, so a run
+    of the set takes most of a second, where queries between any two cells would take tens of seconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MapBenchmark {
+    // The number of queries written when no scenario file is given
+    private static final int SCENARIOS = 32;
+    // The farthest the goal of a written query is from its start, in each axis
+    private static final int RADIUS = 64;
+
+    @Param({ "GRID_ASTAR", "SPARSE_ASTAR", "JPS", "HIERARCHICAL" })
+    public String engine;
+
+    // Files written by the benchmark itself, deleted when it is torn down
+    private final List<Path> written = new ArrayList<>();
+    private Path mapFile;
+    private Path binaryFile;
+    private List<Scenario> scenarios;
+    private GridPathfinder pathfinder;
+
+    @Setup
+    public void setUp() throws IOException {
+        String map = System.getProperty("snake.map");
+        String scen = System.getProperty("snake.scen");
+        if(map != null && scen != null) {
+            mapFile = Path.of(map);
+            scenarios = MovingAiFormat.readScenarios(Path.of(scen));
+        } else {
+            writeDefaultSet();
+        }
+        binaryFile = Files.createTempFile("snake", ".snkm");
+        written.add(binaryFile);
+        long start = System.nanoTime();
+        Grid grid = MovingAiFormat.readMap(mapFile);
+        long imported = System.nanoTime();
+        MapFile.write(grid, binaryFile);
+        long converted = System.nanoTime();
+        MapFile.read(binaryFile);
+        long loaded = System.nanoTime();
+        System.out.printf("%dx%d map: .map import %.1f ms, binary write %.1f ms, binary load %.1f ms%n",
+                grid.getWidth(), grid.getHeight(), (imported - start) / 1e6, (converted - imported) / 1e6, (loaded - converted) / 1e6);
+        pathfinder = create(engine, grid);
+    }
+
+    // Lay out a MAZE board, and write it and random queries between its free cells as a Moving AI set
+    private void writeDefaultSet() throws IOException {
+        GridAStar maze = new GridAStar(2000, 2000);
+        Layout.MAZE.apply(maze, 2000, 2000);
+        Grid grid = maze.getGrid();
+        mapFile = Files.createTempFile("snake", ".map");
+        written.add(mapFile);
+        MovingAiFormat.writeMap(grid, mapFile);
+        Random rand = new Random(42);
+        scenarios = new ArrayList<>();
+        while(scenarios.size() < SCENARIOS) {
+            int start = rand.nextInt(grid.getSize());
+            int goalX = grid.getX(start) + rand.nextInt(2 * RADIUS + 1) - RADIUS;
+            int goalY = grid.getY(start) + rand.nextInt(2 * RADIUS + 1) - RADIUS;
+            if(!grid.isInGrid(goalX, goalY))
+                continue;
+            int goal = grid.index(goalX, goalY);
+            if(grid.isWall(start) || grid.isWall(goal))
+                continue;
+            maze.setStart(grid.getX(start), grid.getY(start));
+            maze.setEnd(grid.getX(goal), grid.getY(goal));
+            if(!maze.run())
+                continue;
+            int length = maze.getPath().size() - 1;
+            scenarios.add(new Scenario(length / 100, mapFile.getFileName().toString(), grid.getWidth(), grid.getHeight(),
+                    grid.getX(start), grid.getY(start), grid.getX(goal), grid.getY(goal), length));
+        }
+        Path scenFile = Files.createTempFile("snake", ".map.scen");
+        written.add(scenFile);
+        MovingAiFormat.writeScenarios(scenarios, scenFile);
+        scenarios = MovingAiFormat.readScenarios(scenFile);
+    }
+
+    // Create the given engine over a grid which already has its walls
+    private static GridPathfinder create(String engine, Grid grid) {
+        return switch(engine) {
+            case "GRID_ASTAR" -> new GridAStar(grid);
+            case "SPARSE_ASTAR" -> new SparseAStar(grid);
+            case "JPS" -> new JumpPointSearch(grid);
+            case "HIERARCHICAL" -> new HierarchicalAStar(grid);
+            default -> throw new IllegalArgumentException("Unknown engine " + engine);
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for(Path file : written)
+            Files.deleteIfExists(file);
+        written.clear();
+    }
+
+    @Benchmark
+    public Grid loadBinary() throws IOException {
+        return MapFile.read(binaryFile);
+    }
+
+    @Benchmark
+    public Grid importMap() throws IOException {
+        return MovingAiFormat.readMap(mapFile);
+    }
+
+    // Run every query of the scenario set, returning the total number of moves found
+    @Benchmark
+    public long scenarios() {
+        long total = 0;
+        for(Scenario scenario : scenarios) {
+            pathfinder.setStart(scenario.startX(), scenario.startY());
+            pathfinder.setEnd(scenario.goalX(), scenario.goalY());
+            if(pathfinder.run())
+                total += pathfinder.getPath().size() - 1;
+        }
+        return total;
+    }
+}
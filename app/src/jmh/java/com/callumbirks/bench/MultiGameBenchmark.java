@@ -0,0 +1,65 @@
+package com.callumbirks.bench;
+
+import com.callumbirks.snake.MultiGame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Measures MultiGame.step() on a 200x200 board, for different numbers of snakes and planning
+    threads, to show how the planning of a tick scales across cores. When every snake has died a new
+    game is started from the next seed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MultiGameBenchmark {
+    @Param({ "16", "64" })
+    public int snakes;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private ExecutorService executor;
+    private long seed = 0;
+    private MultiGame game;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(threads);
+        newGame();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public MultiGame step() {
+        if(game.over())
+            newGame();
+        game.step();
+        return game;
+    }
+
+    private void newGame() {
+        game = new MultiGame(200, 200, snakes, seed++, executor, threads);
+    }
+}
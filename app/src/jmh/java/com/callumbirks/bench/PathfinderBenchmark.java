@@ -0,0 +1,57 @@
+package com.callumbirks.bench;
+
+import com.callumbirks.pathfinder.Algorithm;
+import com.callumbirks.pathfinder.Pathfinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Measures a single search from the top left to the bottom right corner of the board, for each
+    engine, layout and board size. D* Lite is left out as repeating an unchanged search only measures
+    its early exit, see GameBenchmark for it replanning between ticks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PathfinderBenchmark {
+    @Param({ "40x25", "200x200", "2000x2000" })
+    public String size;
+
+    @Param({ "EMPTY", "MAZE", "SNAKE" })
+    public Layout layout;
+
+    @Param({ "ASTAR", "GRID_ASTAR", "SPARSE_ASTAR", "ALT_ASTAR", "JPS", "HIERARCHICAL", "BIDIRECTIONAL" })
+    public Algorithm algorithm;
+
+    private Pathfinder pathfinder;
+
+    @Setup
+    public void setUp() {
+        int[] dimensions = Layout.parseSize(size);
+        pathfinder = algorithm.create(dimensions[0], dimensions[1]);
+        layout.apply(pathfinder, dimensions[0], dimensions[1]);
+        pathfinder.setStart(0, 0);
+        pathfinder.setEnd(dimensions[0] - 1, dimensions[1] - 1);
+        if(!pathfinder.run())
+            throw new IllegalStateException(layout + " has no path at " + size);
+    }
+
+    @Benchmark
+    public boolean run() {
+        return pathfinder.run();
+    }
+}
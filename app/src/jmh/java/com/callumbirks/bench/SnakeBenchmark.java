@@ -0,0 +1,66 @@
+package com.callumbirks.bench;
+
+import com.callumbirks.snake.Direction;
+import com.callumbirks.snake.Snake;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Measures Snake.move() for snakes of different lengths. The snake circles the edge of a square
+    board whose perimeter is longer than the snake, so it never leaves the board or runs into itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SnakeBenchmark {
+    @Param({ "10", "100", "1000" })
+    public int length;
+
+    private Snake snake;
+    // The largest co-ordinate on the square board
+    private int edge;
+
+    @Setup
+    public void setUp() {
+        edge = length;
+        snake = new Snake(0, 0, edge + 1, edge + 1);
+        // Growth before the first move is applied as the snake moves, so move it into its full length
+        for(int i = 1; i < length; i++)
+            snake.grow();
+        for(int i = 1; i < length; i++)
+            move();
+    }
+
+    @Benchmark
+    public Snake move() {
+        snake.move(nextDirection());
+        return snake;
+    }
+
+    // Choose the direction which keeps the snake travelling clockwise around the edge of the board
+    private Direction nextDirection() {
+        int x = snake.getX();
+        int y = snake.getY();
+        if(y == 0 && x < edge)
+            return Direction.RIGHT;
+        if(x == edge && y < edge)
+            return Direction.DOWN;
+        if(y == edge && x > 0)
+            return Direction.LEFT;
+        return Direction.UP;
+    }
+}
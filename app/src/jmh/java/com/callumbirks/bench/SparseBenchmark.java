@@ -0,0 +1,58 @@
+package com.callumbirks.bench;
+
+import com.callumbirks.pathfinder.Algorithm;
+import com.callumbirks.pathfinder.Pathfinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Measures creating an engine for a very large board and answering a first query on it. The
+    CORNER query is short and in one corner, as a tool working on part of a large map would ask.
+    GridAStar allocates its arrays for the whole board up front, where SparseAStar only allocates
+    the pages of the board it reaches. The VERTICAL query runs down the left edge of the board, and
+    as the pages are runs of rows rather than tiles (see Grid), it reaches every page however few
+    cells it expands, so SparseAStar has no advantage there.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class SparseBenchmark {
+    @Param({ "2000x2000", "10000x10000" })
+    public String size;
+
+    @Param({ "GRID_ASTAR", "SPARSE_ASTAR" })
+    public Algorithm algorithm;
+
+    @Param({ "CORNER", "VERTICAL" })
+    public String query;
+
+    @Benchmark
+    public Pathfinder createAndSearch() {
+        int[] dimensions = Layout.parseSize(size);
+        Pathfinder pathfinder = algorithm.create(dimensions[0], dimensions[1]);
+        // A wall across the corner with a gap at its far end, so the search has to go around it
+        for(int x = 0; x < 100; x++)
+            pathfinder.setWall(x, 50, true);
+        pathfinder.setStart(10, 10);
+        if(query.equals("VERTICAL"))
+            pathfinder.setEnd(10, dimensions[1] - 1);
+        else
+            pathfinder.setEnd(10, 90);
+        if(!pathfinder.run())
+            throw new IllegalStateException("No path at " + size);
+        return pathfinder;
+    }
+}
@@ -1,54 +1,184 @@
 package com.callumbirks.jfx;
 
 import com.callumbirks.snake.Game;
+import com.callumbirks.snake.Snake;
 import com.callumbirks.snake.SnakePart;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.KeyCode;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javafx.scene.paint.Color;
-import javafx.util.Duration;
 
+/*
+    Runs the game at a fixed rate of one tick every TICK_NANOS, independently of the frame rate. Each
+    frame runs as many ticks as have come due since the last one, up to MAX_CATCH_UP, and if it falls
+    further behind than that the extra ticks are skipped rather than letting the backlog grow. Pressing
+    T toggles turbo mode, where each frame runs as many ticks as fit in TURBO_BUDGET_NANOS instead.
+
+    Only the cells which changed since the last frame are redrawn; the cells the head entered and the
+    tail left, and the old and new cells of the food and target.
+
+    Planning runs on a background thread (see Game.planAsync), so a slow search does not hold up
+    the FX thread, which only ever runs the cheap part of each tick and draws the game between ticks.
+ */
 public class GameController implements Initializable {
     @FXML
     private Canvas canvas;
     private GraphicsContext gc;
 
     private static final int PIXEL_SIZE = 20;
+    // The time between ticks of the game
+    private static final long TICK_NANOS = 20_000_000L;
+    // The most ticks run in one frame to catch up, any further behind than this is skipped
+    private static final int MAX_CATCH_UP = 5;
+    // In turbo mode, the time spent running ticks in each frame, which leaves the rest of the frame to render
+    private static final long TURBO_BUDGET_NANOS = 12_000_000L;
 
     private Game game;
-    private Timeline timeline;
+    private AnimationTimer timer;
+    // Runs the game's planning on a single daemon thread, so it does not keep the application alive
+    private final ExecutorService planExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "planner");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int width;
+    private int height;
+    // The time of the last frame, or -1 before the first frame
+    private long lastFrame = -1;
+    // The time which has passed but not yet been run as ticks
+    private long accumulated = 0;
+    private boolean turbo = false;
+
+    // The cells which need to be redrawn, and whether each cell is already among them
+    private int[] dirtyCells;
+    private int dirtyCount = 0;
+    private boolean[] dirty;
+    // Whether the whole canvas needs to be redrawn, as it does for the first frame
+    private boolean fullRepaint = true;
+    // The cells the food and target were last drawn in
+    private int drawnFood = Snake.NONE;
+    private int drawnTarget = Snake.NONE;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        int width = (int) canvas.getWidth() / PIXEL_SIZE;
-        int height = (int) canvas.getHeight() / PIXEL_SIZE;
+        width = (int) canvas.getWidth() / PIXEL_SIZE;
+        height = (int) canvas.getHeight() / PIXEL_SIZE;
+        dirtyCells = new int[width * height];
+        dirty = new boolean[width * height];
 
         gc = canvas.getGraphicsContext2D();
 
         game = new Game(width, height);
 
         game.updatePath();
+        game.planAsync(planExecutor);
 
-        timeline = new Timeline();
-        timeline.setCycleCount(Timeline.INDEFINITE);
-        timeline.getKeyFrames().add(new KeyFrame(Duration.millis(20), e -> {
-            if(game.over()) pauseTimeline();//toMenu();
-            game.step();
-            render();
-        }));
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                frame(now);
+            }
+        };
+        canvas.setFocusTraversable(true);
+        canvas.setOnKeyPressed(e -> {
+            if(e.getCode() == KeyCode.T)
+                turbo = !turbo;
+        });
         canvas.requestFocus();
-        timeline.play();
+        timer.start();
+    }
+
+    // Run the ticks which are due at the given time, then draw what changed
+    private void frame(long now) {
+        if(lastFrame < 0)
+            lastFrame = now;
+        accumulated += now - lastFrame;
+        lastFrame = now;
+        if(turbo) {
+            long deadline = System.nanoTime() + TURBO_BUDGET_NANOS;
+            while(System.nanoTime() < deadline) {
+                if(!tick())
+                    break;
+            }
+            accumulated = 0;
+        } else {
+            for(int ticks = 0; accumulated >= TICK_NANOS && ticks < MAX_CATCH_UP; ticks++) {
+                if(!tick())
+                    break;
+                accumulated -= TICK_NANOS;
+            }
+            // Skip the ticks which could not be caught up on
+            accumulated %= TICK_NANOS;
+        }
+        render();
+    }
+
+    // Run a single tick of the game, returning false (and stopping) if the game is over
+    private boolean tick() {
+        if(game.over() || game.isBoardFull()) {
+            pause();
+            return false;
+        }
+        game.step();
+        Snake snake = game.getSnake();
+        markDirty(snake.getX(), snake.getY());
+        int vacated = snake.getVacated();
+        if(vacated != Snake.NONE)
+            markDirty(vacated % width, vacated / width);
+        // Growing moves the tail back into the cell it left
+        markDirty(snake.getTail() % width, snake.getTail() / width);
+        return true;
+    }
+
+    // Mark the cell at the given co-ordinates to be redrawn, if it is on the canvas
+    private void markDirty(int x, int y) {
+        if(!Game.inBounds(width, height, x, y))
+            return;
+        int cell = y * width + x;
+        if(!dirty[cell]) {
+            dirty[cell] = true;
+            dirtyCells[dirtyCount++] = cell;
+        }
     }
 
     private void render() {
+        int food = game.getFood().getY() * width + game.getFood().getX();
+        int target = game.target[1] * width + game.target[0];
+        if(fullRepaint) {
+            renderAll();
+            fullRepaint = false;
+        } else {
+            // The food and target are redrawn in their new cells, and their old cells are cleared
+            if(food != drawnFood) {
+                markDirty(drawnFood % width, drawnFood / width);
+                markDirty(game.getFood().getX(), game.getFood().getY());
+            }
+            if(target != drawnTarget) {
+                markDirty(drawnTarget % width, drawnTarget / width);
+                markDirty(game.target[0], game.target[1]);
+            }
+            for(int i = 0; i < dirtyCount; i++)
+                renderCell(dirtyCells[i] % width, dirtyCells[i] / width);
+        }
+        for(int i = 0; i < dirtyCount; i++)
+            dirty[dirtyCells[i]] = false;
+        dirtyCount = 0;
+        drawnFood = food;
+        drawnTarget = target;
+    }
+
+    // Clear the canvas and draw everything
+    private void renderAll() {
         // Clear canvas
         gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
         // Draw snake
@@ -64,6 +194,22 @@ public class GameController implements Initializable {
         gc.fillOval(game.getFood().getX() * PIXEL_SIZE, game.getFood().getY() * PIXEL_SIZE, PIXEL_SIZE, PIXEL_SIZE);
     }
 
+    // Clear and redraw a single cell, layering the snake, target and food as renderAll does
+    private void renderCell(int x, int y) {
+        gc.clearRect(x * PIXEL_SIZE, y * PIXEL_SIZE, PIXEL_SIZE, PIXEL_SIZE);
+        if(game.getSnake().occupies(x, y)) {
+            gc.setFill(Color.LIME);
+            gc.fillRect(x * PIXEL_SIZE, y * PIXEL_SIZE, PIXEL_SIZE, PIXEL_SIZE);
+        }
+        if(game.target[0] == x && game.target[1] == y) {
+            gc.setFill(Color.RED);
+            gc.fillRect(x * PIXEL_SIZE, y * PIXEL_SIZE, PIXEL_SIZE, PIXEL_SIZE);
+        }
+        if(game.getFood().getX() == x && game.getFood().getY() == y) {
+            gc.setFill(Color.WHITE);
+            gc.fillOval(x * PIXEL_SIZE, y * PIXEL_SIZE, PIXEL_SIZE, PIXEL_SIZE);
+        }
+    }
 
     private void toMenu() {
         try {
@@ -73,7 +219,7 @@ public class GameController implements Initializable {
         }
     }
 
-    public void pauseTimeline() {
-        timeline.pause();
+    public void pause() {
+        timer.stop();
     }
 }
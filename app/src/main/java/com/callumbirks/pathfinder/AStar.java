@@ -1,16 +1,16 @@
 package com.callumbirks.pathfinder;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.PriorityQueue;
 
 /*
     This class contains the A* algorithm. This algorithm has been written
     in a modular way so that with the Node class, it is entirely separable
-    from the GUI portion of the application.
+    from the GUI portion of the application. Its search state is held in the Node objects of its
+    own grid, so it answers one query at a time, see SearchContext for queries from many threads.
  */
-public class AStar {
+public class AStar implements Pathfinder {
     // A 2D array of Node objects which represents the grid
     private final Node[][] grid;
     // A Node object which represents the start node
@@ -19,6 +19,25 @@ public class AStar {
     private Node end = null;
     // A List of Node objects which represents the path found by the algorithm
     private List<Node> path = null;
+    // The path as a compact CellPath, built alongside the path, see reconstructPath
+    private CellPath compactPath = null;
+    /*
+        The open set used by the algorithm. It is an indexed min-heap of cell indices (y * width + x)
+        ordered by f(n), which tracks the position of each cell so that checking whether a node is
+        in the open set and lowering its f(n) value are not linear scans. It is created once with
+        the grid and reused by every run.
+     */
+    private final IndexedHeap openSet;
+    // Counts the work done by each run, see SearchStats
+    private final SearchRecorder recorder = new SearchRecorder();
+    /*
+        The id of the current search and the current generation of walls. A node's search values
+        are only valid if its search stamp equals 'searchId', and its wall boolean is only valid if
+        its wall stamp equals 'wallGeneration'. Incrementing either of these therefore resets every
+        node in the grid at once, without looping through the grid.
+     */
+    private int searchId = 0;
+    private int wallGeneration = 0;
 
     /*
         The primary and only constructor for the class, it takes the width and height of the
@@ -41,6 +60,8 @@ public class AStar {
                 grid[x][y].setNeighbours(width, height, grid);
             }
         }
+        // Create the open set with room for every node in the grid
+        openSet = new IndexedHeap(width * height, recorder);
     }
 
     /*
@@ -74,6 +95,11 @@ public class AStar {
         return path;
     }
 
+    // Getter for the path as a compact CellPath, if the path has not been found then this returns null
+    public CellPath getCompactPath() {
+        return compactPath;
+    }
+
     /*
         Setter for whether each node in the grid is a wall. Parameters are; the x and y co-ordinates
         for the relevant node, and a boolean determining whether this node is to be set as a wall
@@ -81,22 +107,35 @@ public class AStar {
      */
     public void setWall(int x, int y, boolean wall) {
         grid[x][y].setWall(wall);
+        grid[x][y].setWallStamp(wallGeneration);
     }
 
     // Getter for the wall boolean of a node at the given x and y co-ordinates of the grid
     public boolean isWall(int x, int y) {
-        return grid[x][y].isWall();
+        return isWall(grid[x][y]);
     }
 
-    // Reset all walls (to not be walls)
+    /*
+        Reset all walls (to not be walls). Rather than looping through the grid, this starts a new
+        generation of walls, so every wall set in an earlier generation is ignored by isWall.
+     */
     public void resetWalls() {
-        for(int x = 0; x < getGridWidth(); x++) {
-            for(int y = 0; y < getGridHeight(); y++) {
-                grid[x][y].setWall(false);
+        // In the unlikely event that the generation wraps around, old stamps could become valid again
+        if(++wallGeneration == 0) {
+            for(int x = 0; x < getGridWidth(); x++) {
+                for(int y = 0; y < getGridHeight(); y++) {
+                    grid[x][y].setWall(false);
+                    grid[x][y].setWallStamp(0);
+                }
             }
         }
     }
 
+    // Check whether the given node is a wall in the current generation of walls
+    private boolean isWall(Node node) {
+        return node.getWallStamp() == wallGeneration && node.isWall();
+    }
+
     // Check whether the node at the given x and y co-ords is the start node
     public boolean isStart(int x, int y) {
         return grid[x][y].equals(start);
@@ -114,7 +153,7 @@ public class AStar {
 
     // Check whether the path has been set, and then if the node at the given x and y co-ords is on the path
     public boolean isOnPath(int x, int y) {
-        return isPathSet() && path.contains(grid[x][y]);
+        return isPathSet() && getCompactPath().contains(x, y);
     }
 
     // Check whether the node at the given x and y co-ordinates is within the bounds of the grid
@@ -122,27 +161,54 @@ public class AStar {
         return x < getGridWidth() && y < getGridHeight() && x >= 0 && y >= 0;
     }
 
+    // Getter for the statistics of the last run, this is null unless SearchStats.ENABLED is set
+    public SearchStats getLastStats() {
+        return recorder.getLast();
+    }
+
     /*
-        Loop through all of the nodes in the grid, resetting the values of f(n), g(n), h(n)
-        and previous. The reason these values are reset is to ensure that the algorithm runs
-        consistently every time.
+        Begin a new search. Rather than looping through all of the nodes in the grid to reset their
+        values, this increments the search id, so that every node is considered to be reset until it
+        is visited by this search. This makes the set up of a search O(1), and the total work of a
+        search proportional to the number of nodes it actually reaches.
     */
     private void resetValues() {
-        // For each node in the grid
-        for (int x = 0; x < getGridWidth(); x++) {
-            for (int y = 0; y < getGridHeight(); y++) {
-                // Reset f(n) to infinity
-                grid[x][y].setF((int) Double.POSITIVE_INFINITY);
-                // Reset g(n) to infinity
-                grid[x][y].setG((int) Double.POSITIVE_INFINITY);
-                // Reset and calculate h(n)
-                grid[x][y].setH(AStar.calculateH(x,y,end));
-                // Reset 'previous'
-                grid[x][y].setPrevious(null);
+        // In the unlikely event that the id wraps around, old stamps could become valid again
+        if(++searchId == 0) {
+            for (int x = 0; x < getGridWidth(); x++) {
+                for (int y = 0; y < getGridHeight(); y++) {
+                    grid[x][y].setSearchStamp(0);
+                }
             }
+            searchId = 1;
+        }
+    }
+
+    /*
+        Visit the given node during the current search. If the node has not yet been visited by this
+        search, then its values are still those of an earlier search, so they are reset here; f(n) and
+        g(n) to infinity, h(n) is calculated, and 'previous' is reset.
+     */
+    private void visit(Node node) {
+        if(node.getSearchStamp() != searchId) {
+            node.setF((int) Double.POSITIVE_INFINITY);
+            node.setG((int) Double.POSITIVE_INFINITY);
+            node.setH(AStar.calculateH(node.getX(), node.getY(), end));
+            node.setPrevious(null);
+            node.setSearchStamp(searchId);
         }
     }
 
+    // Calculate the index of the given node within the open set
+    private int indexOf(Node node) {
+        return node.getY() * getGridWidth() + node.getX();
+    }
+
+    // Get the node at the given open set index
+    private Node nodeAt(int index) {
+        return grid[index % getGridWidth()][index / getGridWidth()];
+    }
+
     // Calculate and return the width of the grid based on the number of columns
     private int getGridWidth() {
         return grid.length;
@@ -169,8 +235,14 @@ public class AStar {
         if(end == null)
             throw new IllegalArgumentException("End node has not been set");
 
+        // Begin counting the work done by this run, this does nothing unless statistics are enabled
+        recorder.start();
+        // The compact path of the previous run is out of date
+        compactPath = null;
         // Call the resetValues function to ensure that the algorithm will run consistently
         resetValues();
+        // Visit the start node so that its values are reset before they are set below
+        visit(start);
 
         /*
             Set the g(n) value of the start node to 0, as g(n) represents the distance
@@ -184,54 +256,61 @@ public class AStar {
          */
         start.setF(calculateH(start.getX(), start.getY(), end));
         /*
-            Create a variable to hold the openSet. The openSet is a list of the next nodes to be
-            tested to find the optimal path. I am using a PriorityQueue for the openSet to improve
-            efficiency. When retrieving a node from this PriorityQueue, the node with the lowest f(n)
-            value is retrieved, therefore the node with the lowest f(n) value in the set will always
-            be tested first. The f(n) value in this algorithm is given by g(n) + h(n), g(n) being the
-            cost from the start node to the current node and h(n) being the euclidean distance from the
-            current node to the end node.
+            Clear the openSet. The openSet is a set of the next nodes to be tested to find the
+            optimal path. I am using an indexed heap for the openSet to improve efficiency. When
+            retrieving a node from this heap, the node with the lowest f(n) value is retrieved,
+            therefore the node with the lowest f(n) value in the set will always be tested first.
+            The f(n) value in this algorithm is given by g(n) + h(n), g(n) being the cost from the
+            start node to the current node and h(n) being the Manhattan distance from the current
+            node to the end node. A previous run may have left nodes in the openSet if it found the
+            end node early, which is why it must be cleared.
          */
-        PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparing(Node::getF));
+        openSet.clear();
         /*
             Add the start node to the open set as this is the first node in the path and we need
             to traverse through the grid from the start node to the end node in order to find
             the optimal path
          */
-        openSet.add(start);
+        openSet.update(indexOf(start), start.getF());
 
         // While there are still nodes to be tested
         while (!openSet.isEmpty()) {
-            /* Get the top value of this queue, which in this case will be the node with the lowest f(n)
-               and assign to current (the node currently being tested) */
-            Node current = openSet.peek();
+            /* Remove the top value of this heap, which in this case will be the node with the lowest f(n),
+               and assign to current (the node currently being tested). It does not need to be tested again */
+            Node current = nodeAt(openSet.poll());
             // If this node is the end node
-            if (current.equals(end)) {
+            if (current == end) {
                 // Run the reconstructPath function to reconstruct the path and assign the result to the 'path' variable
                 path = reconstructPath(current);
+                recorder.finish(getClass(), path);
                 // Exit the function early as the optimal path has been located
                 return true;
             }
-            // Remove the current node from the openSet (It does not need to be tested again)
-            openSet.remove(current);
+            recorder.expand();
             // For each of the current node's neighbours
             for (Node neighbour : current.getNeighbours()) {
                 // If the neighbour is not a wall
-                if(!neighbour.isWall()) {
+                if(!isWall(neighbour)) {
+                    // Ensure the neighbour's values belong to this search
+                    visit(neighbour);
                     // Increment the g(n) value by 1 as this will be the g(n) value of the neighbour
                     int tempG = current.getG() + 1;
                     // If the new g(n) value is lower than the current g(n) value of the neighbour
                     if (tempG < neighbour.getG()) {
+                        // A node which has been reached but is not in the open set has already been expanded
+                        if(SearchStats.ENABLED && neighbour.getG() != (int) Double.POSITIVE_INFINITY && !openSet.contains(indexOf(neighbour)))
+                            recorder.reopen();
                         // Set the previous node of the neighbour to be the current node
                         neighbour.setPrevious(current);
                         // Set the neighbour's g(n) value to the new g(n) value
                         neighbour.setG(tempG);
                         // Calculate the neighbour's f(n) value and assign to their f(n) value
                         neighbour.setF(tempG + neighbour.getH());
-                        // If the neighbour is not already in the openSet
-                        if (!openSet.contains(neighbour))
-                            // Add them to the open set as we will need to test their neighbour's next
-                            openSet.add(neighbour);
+                        /*
+                            Add the neighbour to the open set as we will need to test their neighbours next,
+                            or if they are already in the open set, lower their f(n) value in place
+                         */
+                        openSet.update(indexOf(neighbour), neighbour.getF());
                     }
                 }
             }
@@ -243,43 +322,44 @@ public class AStar {
             will be null
          */
         path = null;
+        recorder.finish(getClass(), path);
         return false;
     }
 
     // Calculate the h(n) value for a node at a given co-ordinate and given the end node
     private static int calculateH(int x, int y, Node end) {
         /*
-            Using Pythagoras, calculate the euclidean distance between the given node and the end node.
-            Math.ceil rounds up, rounding is necessary as we are casting the result from a double to an
-            integer which would otherwise cause truncation which is less precise than rounding.
+            Calculate the Manhattan distance between the given node and the end node. As each node only
+            has 4 neighbours, at a cost of 1 each, this is exactly the number of moves between them when
+            there are no walls in the way, so it never overestimates, and it is much tighter than the
+            euclidean distance while needing no floating point arithmetic.
          */
-        return (int) Math.ceil(Math.sqrt(((end.getX() - x)*(end.getX()) - x) + ((end.getY() - y)*(end.getY() - y))));
+        return Math.abs(end.getX() - x) + Math.abs(end.getY() - y);
     }
 
     /*
         Reconstruct the path from the current node (which would be the end node) back to the start node.
         The arguments passed in is a Node representing the current node.
-        The value returned is the completed path (A list of nodes).
+        The value returned is the completed path (A list of nodes). The compact path is built from
+        the same nodes at the same time, so that getCompactPath does not have to convert the list.
      */
-    private static List<Node> reconstructPath(Node current) {
-        // Create a local variable to hold the path, using an ArrayList
-        List<Node> path = new ArrayList<>();
-        // Add the current node to the path
-        path.add(current);
+    private List<Node> reconstructPath(Node current) {
         /*
-            While the current node has a previous node (when we reach a node in the path without a
-            previous node, this is the start node)
+            Count the nodes of the path by following the previous nodes back to the start node (the
+            node without a previous node), so that both arrays can be filled from the end backwards
          */
-        while(current.getPrevious() != null) {
-            // Set the current node to be this node's previous node
+        int length = 1;
+        for(Node node = current; node.getPrevious() != null; node = node.getPrevious())
+            length++;
+        Node[] nodes = new Node[length];
+        int[] cells = new int[length];
+        for(int i = length - 1; i >= 0; i--) {
+            nodes[i] = current;
+            cells[i] = indexOf(current);
             current = current.getPrevious();
-            /*
-                Add the current node to the start of the path (as we are working backwards,
-                we add each node to the start so that the path will end up in the correct order).
-             */
-            path.add(0,current);
         }
+        compactPath = new CellPath(cells, getGridWidth());
         // Return the completed path
-        return path;
+        return new ArrayList<>(Arrays.asList(nodes));
     }
 }
@@ -0,0 +1,48 @@
+package com.callumbirks.pathfinder;
+
+import java.util.function.BiFunction;
+
+/*
+    The search engines which can be selected by the Game. Each constant knows how to create its
+    engine for a grid of a given width and height.
+ */
+public enum Algorithm {
+    // The original A* algorithm, with a Node object for each cell of the grid
+    ASTAR(AStar::new),
+    // A* over flat arrays and a wall bitset
+    GRID_ASTAR(GridAStar::new),
+    // A* over paged arrays and a paged open set, which only allocates the parts of a very large grid it reaches
+    SPARSE_ASTAR(SparseAStar::new),
+    // A* over flat arrays with the ALT heuristic, distance tables from 4 landmarks
+    ALT_ASTAR(Algorithm::altAStar),
+    // Jump Point Search, A* which only expands the jump points of a uniform cost grid
+    JPS(JumpPointSearch::new),
+    // HPA*, A* over an abstract graph of the entrances between 16x16 clusters, for very large grids, paths are near the shortest
+    HIERARCHICAL(HierarchicalAStar::new),
+    // Bidirectional A*, which grows frontiers from both ends and fails fast when one is walled off
+    BIDIRECTIONAL(BidirectionalAStar::new),
+    // A breadth-first flood, which finds the distance to every reachable cell at once
+    FLOOD(DistanceFlood::new),
+    // D* Lite, which repairs its previous solution rather than searching again
+    DSTAR_LITE(DStarLite::new),
+    // A precomputed Hamiltonian cycle with shortcuts, which chooses each move in O(1), needs an even width or height
+    HAMILTONIAN(HamiltonianCycle::new);
+
+    private final BiFunction<Integer, Integer, Pathfinder> factory;
+
+    Algorithm(BiFunction<Integer, Integer, Pathfinder> factory) {
+        this.factory = factory;
+    }
+
+    // Create a new engine for a grid of the given width and height
+    public Pathfinder create(int width, int height) {
+        return factory.apply(width, height);
+    }
+
+    // Create a GridAStar which uses a LandmarkHeuristic
+    private static Pathfinder altAStar(int width, int height) {
+        GridAStar engine = new GridAStar(width, height);
+        engine.setHeuristic(new LandmarkHeuristic(engine.getGrid(), 4));
+        return engine;
+    }
+}
@@ -0,0 +1,166 @@
+package com.callumbirks.pathfinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+    Answers many path queries against one frozen Grid at once, such as the distance to the food from
+    every cell the snake could move to. Queries are given as an array of cell index pairs, start then
+    end, so query i is from queries[2 * i] to queries[2 * i + 1].
+
+    Queries are grouped by their start cell. A group of one is searched with A*, and a larger group
+    with a single breadth first search which stops once it has reached every end cell of the group
+    (see SearchContext.searchAll), so a hundred queries from one cell cost about as much as the
+    farthest of them. The groups are split between the threads of a ForkJoinPool, and each thread
+    searches with its own pooled SearchContext, so nothing but the grid is shared.
+ */
+public class BatchPathfinder {
+    // The number of groups below which a task searches them itself rather than splitting them further
+    private static final int GROUPS_PER_TASK = 16;
+
+    // The grid which is searched, it must be frozen so that it cannot change during a batch
+    private final Grid grid;
+    // The pool the groups are searched on
+    private final ForkJoinPool pool;
+
+    // Create a batch pathfinder over the given grid which searches on the common pool
+    public BatchPathfinder(Grid grid) {
+        this(grid, ForkJoinPool.commonPool());
+    }
+
+    // Create a batch pathfinder over the given grid which searches on the given pool
+    public BatchPathfinder(Grid grid, ForkJoinPool pool) {
+        if(!grid.isFrozen())
+            throw new IllegalArgumentException("Grid must be frozen to be searched from many threads.");
+        this.grid = grid;
+        this.pool = pool;
+    }
+
+    // Getter for the grid searched
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /*
+        Find the number of moves of the shortest path of every query, or -1 for the queries which
+        have no path, in the order of the queries.
+     */
+    public int[] distances(int[] queries) {
+        int[] distances = new int[checkQueries(queries)];
+        run(queries, distances, null);
+        return distances;
+    }
+
+    // Find the shortest path of every query, or null for the queries which have no path, in the order of the queries
+    public List<List<Node>> paths(int[] queries) {
+        int count = checkQueries(queries);
+        int[] distances = new int[count];
+        // Every slot is set by a single task, and none are added or removed, so the tasks can share the list
+        List<List<Node>> paths = new ArrayList<>(Collections.nCopies(count, null));
+        run(queries, distances, paths);
+        return paths;
+    }
+
+    // Check the queries are whole pairs of cells within the grid, and return the number of queries
+    private int checkQueries(int[] queries) {
+        if(queries.length % 2 != 0)
+            throw new IllegalArgumentException("Queries must be pairs of start and end cells.");
+        for(int cell : queries) {
+            if(cell < 0 || cell >= grid.getSize())
+                throw new IllegalArgumentException("Query cell " + cell + " is outside of the grid.");
+        }
+        return queries.length / 2;
+    }
+
+    /*
+        Group the queries by start cell, then search every group on the pool, writing the distance
+        (and the path, if 'paths' is not null) of each query into its slot.
+     */
+    private void run(int[] queries, int[] distances, List<List<Node>> paths) {
+        int count = distances.length;
+        if(count == 0)
+            return;
+        // Sort the queries by start cell, packing the start above the query number so one sort does it
+        long[] order = new long[count];
+        for(int i = 0; i < count; i++)
+            order[i] = ((long) queries[2 * i] << 32) | i;
+        Arrays.sort(order);
+        // The first position in 'order' of each group, with the end of the last group after them
+        int[] groupStarts = new int[count + 1];
+        int groups = 0;
+        for(int i = 0; i < count; i++) {
+            if(i == 0 || (int) (order[i] >>> 32) != (int) (order[i - 1] >>> 32))
+                groupStarts[groups++] = i;
+        }
+        groupStarts[groups] = count;
+        pool.invoke(new GroupTask(grid, queries, order, groupStarts, 0, groups, distances, paths));
+    }
+
+    // Searches a range of groups, splitting it in half between two tasks while it is large
+    private static class GroupTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Grid grid;
+        private final int[] queries;
+        private final long[] order;
+        private final int[] groupStarts;
+        private final int from;
+        private final int to;
+        private final int[] distances;
+        private final transient List<List<Node>> paths;
+
+        GroupTask(Grid grid, int[] queries, long[] order, int[] groupStarts, int from, int to, int[] distances,
+                  List<List<Node>> paths) {
+            this.grid = grid;
+            this.queries = queries;
+            this.order = order;
+            this.groupStarts = groupStarts;
+            this.from = from;
+            this.to = to;
+            this.distances = distances;
+            this.paths = paths;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > GROUPS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GroupTask(grid, queries, order, groupStarts, from, middle, distances, paths),
+                        new GroupTask(grid, queries, order, groupStarts, middle, to, distances, paths));
+                return;
+            }
+            SearchContext context = SearchContext.forCurrentThread(grid.getSize());
+            for(int group = from; group < to; group++)
+                search(context, groupStarts[group], groupStarts[group + 1]);
+        }
+
+        // Search the group of queries at positions 'first' up to (but not including) 'last' of 'order'
+        private void search(SearchContext context, int first, int last) {
+            int start = (int) (order[first] >>> 32);
+            if(last - first == 1) {
+                int query = (int) order[first];
+                int end = queries[2 * query + 1];
+                List<Node> path = context.search(grid, grid.getX(start), grid.getY(start), grid.getX(end), grid.getY(end));
+                distances[query] = path == null ? -1 : path.size() - 1;
+                if(paths != null)
+                    paths.set(query, path);
+                return;
+            }
+            int[] targets = new int[last - first];
+            for(int i = first; i < last; i++)
+                targets[i - first] = queries[2 * (int) order[i] + 1];
+            context.searchAll(grid, start, targets);
+            for(int i = first; i < last; i++) {
+                int query = (int) order[i];
+                int end = queries[2 * query + 1];
+                distances[query] = context.distanceTo(end);
+                if(paths != null)
+                    paths.set(query, context.pathTo(grid, end));
+            }
+        }
+    }
+}
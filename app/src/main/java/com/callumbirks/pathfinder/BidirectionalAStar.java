@@ -0,0 +1,180 @@
+package com.callumbirks.pathfinder;
+
+import java.util.Arrays;
+
+/*
+    This class contains a bidirectional A* search. One frontier grows forwards from the start cell
+    towards the end cell, and another grows backwards from the end cell towards the start cell, each
+    step expanding whichever frontier is smaller. Whenever a cell is reached by both frontiers, the
+    path through it is recorded if it is the shortest seen so far, and the search stops once neither
+    frontier can lead to anything shorter.
+
+    If either frontier runs out of cells before the two have met, the start and end cells are not
+    connected. When the end cell is walled off (for example behind the snake's body), the backward
+    frontier runs out after exploring only the small pocket around it, rather than the forward search
+    having to explore nearly the whole board before failing.
+
+    The backward frontier reaches each cell without knowing how many moves from the start cell it
+    will be when the path passes through it, so it can not tell whether a wall will have freed up by
+    then, or whether a reserved cell will still be reserved. So unlike GridAStar, walls which free up
+    are treated as walls for the whole search, and the reservations of other agents (see
+    GridPathfinder.setReservations) are not honoured at all.
+ */
+public class BidirectionalAStar extends GridPathfinder {
+    // The g(n) value of each cell from the start cell, and from the end cell
+    private final int[] forwardG;
+    private final int[] backwardG;
+    // The previous cell towards the start cell, and the next cell towards the end cell
+    private final int[] forwardPrevious;
+    private final int[] backwardPrevious;
+    // The id of the search which last reset each cell's values, see GridAStar
+    private final int[] stamp;
+    private int searchId = 0;
+    // The open sets of the two frontiers, ordered by f(n)
+    private final IndexedHeap forwardOpen;
+    private final IndexedHeap backwardOpen;
+    // Scratch space for the neighbours of the cell currently being expanded
+    private final int[] neighbours = new int[4];
+    // The length of the shortest path found so far, and the cell where its two halves meet
+    private int best;
+    private int meeting;
+
+    // Create an engine with its own empty grid of the given width and height
+    public BidirectionalAStar(int width, int height) {
+        this(new Grid(width, height));
+    }
+
+    // Create an engine which searches the given grid
+    public BidirectionalAStar(Grid grid) {
+        super(grid);
+        forwardG = new int[grid.getSize()];
+        backwardG = new int[grid.getSize()];
+        forwardPrevious = new int[grid.getSize()];
+        backwardPrevious = new int[grid.getSize()];
+        stamp = new int[grid.getSize()];
+        forwardOpen = new IndexedHeap(grid.getSize(), recorder);
+        backwardOpen = new IndexedHeap(grid.getSize(), recorder);
+    }
+
+    /*
+        Run the search between the start and end cells. As with AStar.run, true is returned and the
+        path is stored if a path is found, otherwise the path is set to null and false is returned.
+     */
+    @Override
+    public boolean run() {
+        checkEndpoints();
+        recorder.start();
+        heuristic.prepare();
+
+        if(++searchId == 0) {
+            Arrays.fill(stamp, 0);
+            searchId = 1;
+        }
+        forwardOpen.clear();
+        backwardOpen.clear();
+        best = INFINITY;
+        meeting = NONE;
+        path = null;
+
+        // As with the other engines, the end cell can not be reached if it is a wall
+        if(start != end && grid.isWall(end)) {
+            recorder.finish(getClass(), path);
+            return false;
+        }
+
+        visit(start);
+        forwardG[start] = 0;
+        forwardOpen.update(start, heuristic.estimate(start, end));
+        visit(end);
+        backwardG[end] = 0;
+        backwardOpen.update(end, heuristic.estimate(end, start));
+        if(start == end)
+            record(start);
+
+        while(true) {
+            boolean forwardEmpty = forwardOpen.isEmpty();
+            boolean backwardEmpty = backwardOpen.isEmpty();
+            // A frontier has run out before meeting the other, so there is no path
+            if(meeting == NONE && (forwardEmpty || backwardEmpty))
+                break;
+            if(forwardEmpty && backwardEmpty)
+                break;
+            /*
+                Any path shorter than the best so far would have to pass through a cell in each open
+                set with an f(n) value lower than the best, so once either open set has none, the
+                best path is the shortest.
+             */
+            if((!forwardEmpty && forwardOpen.peekKey() >= best) || (!backwardEmpty && backwardOpen.peekKey() >= best))
+                break;
+            if(backwardEmpty || (!forwardEmpty && forwardOpen.size() <= backwardOpen.size()))
+                expand(forwardOpen.poll(), forwardG, forwardPrevious, forwardOpen, backwardG, end);
+            else
+                expand(backwardOpen.poll(), backwardG, backwardPrevious, backwardOpen, forwardG, start);
+        }
+
+        if(meeting != NONE)
+            setPath(reconstructPath());
+        recorder.finish(getClass(), path);
+        return path != null;
+    }
+
+    /*
+        Expand a cell of one frontier, given that frontier's g(n) values, previous cells and open set,
+        the other frontier's g(n) values, and the cell the frontier is heading towards.
+     */
+    private void expand(int current, int[] g, int[] previous, IndexedHeap open, int[] otherG, int target) {
+        recorder.expand();
+        int count = grid.neighbours(current, neighbours);
+        for(int i = 0; i < count; i++) {
+            int neighbour = neighbours[i];
+            if(grid.isWall(neighbour) && neighbour != start)
+                continue;
+            visit(neighbour);
+            int tempG = g[current] + 1;
+            if(tempG < g[neighbour]) {
+                if(SearchStats.ENABLED && g[neighbour] != INFINITY && !open.contains(neighbour))
+                    recorder.reopen();
+                g[neighbour] = tempG;
+                previous[neighbour] = current;
+                open.update(neighbour, tempG + heuristic.estimate(neighbour, target));
+                if(otherG[neighbour] != INFINITY)
+                    record(neighbour);
+            }
+        }
+    }
+
+    // Record the path through the given cell, reached by both frontiers, if it is the shortest so far
+    private void record(int cell) {
+        int length = forwardG[cell] + backwardG[cell];
+        if(length < best) {
+            best = length;
+            meeting = cell;
+        }
+    }
+
+    // Reset the values of the given cell if it has not yet been reached by the current search
+    private void visit(int cell) {
+        if(stamp[cell] != searchId) {
+            forwardG[cell] = INFINITY;
+            backwardG[cell] = INFINITY;
+            forwardPrevious[cell] = NONE;
+            backwardPrevious[cell] = NONE;
+            stamp[cell] = searchId;
+        }
+    }
+
+    /*
+        Reconstruct the path by following the forward previous cells from the meeting cell back to
+        the start cell, and the backward ones from the meeting cell on to the end cell.
+     */
+    private int[] reconstructPath() {
+        int[] cells = new int[best + 1];
+        int i = forwardG[meeting];
+        for(int cell = meeting; cell != NONE; cell = forwardPrevious[cell])
+            cells[i--] = cell;
+        i = forwardG[meeting];
+        for(int cell = backwardPrevious[meeting]; cell != NONE; cell = backwardPrevious[cell])
+            cells[++i] = cell;
+        return cells;
+    }
+}
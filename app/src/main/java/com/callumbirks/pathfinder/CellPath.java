@@ -0,0 +1,116 @@
+package com.callumbirks.pathfinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    A compact, immutable path. The cells are held as packed indices (y * width + x) in a single int
+    array rather than as a List of Node objects, and the moves between them are worked out from the
+    difference of neighbouring indices. Alongside the cells, a bitset over the indices makes checking
+    whether a cell is on the path O(1), where List.contains compares every Node in turn. The bitset
+    only spans the indices from the smallest on the path to the largest, so a short path far into a
+    large grid costs a few words rather than one bit for every cell before it.
+
+    The engines build their paths as arrays of cell indices, see GridPathfinder.setPath, so a
+    CellPath is made from the array directly and the List of Nodes is only another view of it.
+ */
+public final class CellPath {
+    // The moves between neighbouring cells, in the same order as Grid.neighbours and the snake's Direction
+    public static final int UP = 0;
+    public static final int RIGHT = 1;
+    public static final int DOWN = 2;
+    public static final int LEFT = 3;
+
+    // The width of the grid the path is on, to turn indices back into co-ordinates
+    private final int width;
+    // The index of each cell of the path, from the start cell to the end cell
+    private final int[] cells;
+    // The first word of the bitset, the word of the smallest index on the path
+    private final int firstWord;
+    // Bit (index & 63) of word (index >>> 6) - firstWord is set when the cell at the index is on the path
+    private final long[] members;
+
+    // Create a path of the given cell indices on a grid of the given width, the array is not copied
+    public CellPath(int[] cells, int width) {
+        this.width = width;
+        this.cells = cells;
+        int smallest = Integer.MAX_VALUE;
+        int largest = 0;
+        for(int cell : cells) {
+            smallest = Math.min(smallest, cell);
+            largest = Math.max(largest, cell);
+        }
+        firstWord = cells.length == 0 ? 0 : smallest >>> 6;
+        members = new long[cells.length == 0 ? 0 : (largest >>> 6) - firstWord + 1];
+        for(int cell : cells)
+            members[(cell >>> 6) - firstWord] |= 1L << cell;
+    }
+
+    // Create a path from a List of Node objects on a grid of the given width, or null if the list is null
+    public static CellPath of(List<Node> nodes, int width) {
+        if(nodes == null)
+            return null;
+        int[] cells = new int[nodes.size()];
+        for(int i = 0; i < cells.length; i++)
+            cells[i] = nodes.get(i).getY() * width + nodes.get(i).getX();
+        return new CellPath(cells, width);
+    }
+
+    // Getter for the number of cells on the path, including the start cell
+    public int size() {
+        return cells.length;
+    }
+
+    // Getter for the index of the i-th cell of the path
+    public int cellAt(int i) {
+        return cells[i];
+    }
+
+    // Getter for the x co-ordinate of the i-th cell of the path
+    public int getX(int i) {
+        return cells[i] % width;
+    }
+
+    // Getter for the y co-ordinate of the i-th cell of the path
+    public int getY(int i) {
+        return cells[i] / width;
+    }
+
+    /*
+        Get the move from the i-th cell of the path to the next, one of UP, RIGHT, DOWN or LEFT.
+        An IllegalStateException is thrown if the cells are not neighbours.
+     */
+    public int moveAt(int i) {
+        int step = cells[i + 1] - cells[i];
+        if(step == -width)
+            return UP;
+        if(step == width)
+            return DOWN;
+        // A step of 1 between the end of one row and the start of the next is not a move
+        if(step == 1 && cells[i + 1] % width != 0)
+            return RIGHT;
+        if(step == -1 && cells[i] % width != 0)
+            return LEFT;
+        throw new IllegalStateException("Path cells " + i + " and " + (i + 1) + " are not adjacent.");
+    }
+
+    // Check whether the cell at the given index is on the path
+    public boolean contains(int index) {
+        int word = (index >>> 6) - firstWord;
+        return index >= 0 && word >= 0 && word < members.length && (members[word] & (1L << index)) != 0;
+    }
+
+    // Check whether the cell at the given x and y co-ordinates is on the path
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && contains(y * width + x);
+    }
+
+    // Create a List of Node objects for the cells of the path, in order from the start cell
+    public List<Node> toNodes() {
+        Node[] nodes = new Node[cells.length];
+        for(int i = 0; i < nodes.length; i++)
+            nodes[i] = new Node(getX(i), getY(i));
+        return new ArrayList<>(Arrays.asList(nodes));
+    }
+}
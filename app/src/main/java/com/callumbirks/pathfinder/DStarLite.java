@@ -0,0 +1,292 @@
+package com.callumbirks.pathfinder;
+
+import java.util.Arrays;
+
+/*
+    This class contains the D* Lite algorithm, an incremental planner with the same public surface as
+    AStar. D* Lite searches backwards from the end cell towards the start cell, and keeps its g(n) and
+    rhs(n) values between runs. When the start cell moves, or cells become walls or stop being walls,
+    the next run only repairs the part of the previous solution which those changes affect, instead of
+    searching the whole grid again. Changing the end cell discards the previous solution.
+
+    Walls may be set and reset freely between runs, the planner records which cells were touched and
+    compares them against the walls it last planned around, so a cell which is reset and then set to a
+    wall again between runs does not count as a change. Game only touches the cells the snake's head
+    enters and its tail leaves each tick (see Game.updateWalls), so only those are repaired.
+    The solution is kept between runs whose start times differ, so it can not depend on when a cell
+    is reached, and unlike GridAStar, walls which free up are treated as walls for the whole search,
+    as in JumpPointSearch. So a path through a tail which will have moved on by the time it is
+    reached is not found until that tail has actually left its cell.
+ */
+public class DStarLite extends GridPathfinder {
+    // Once the key modifier grows beyond this the search is started afresh, so that keys cannot overflow
+    private static final int MAX_KEY_MODIFIER = 1 << 29;
+
+    // The key modifier beyond which this planner starts afresh, MAX_KEY_MODIFIER unless a test lowers it
+    private final int maxKeyModifier;
+
+    // The walls as they were when the planner last ran, the solution is consistent with these walls
+    private final Grid planned;
+    // The cells whose wall has been set or reset since the last run, may contain duplicates
+    private int[] touched = new int[16];
+    private int touchedCount = 0;
+    // The g(n) value of each cell, its distance to the end cell as of the last expansion
+    private final int[] g;
+    // The rhs(n) value of each cell, a one step lookahead of g(n) based on the cell's neighbours
+    private final int[] rhs;
+    /*
+        The id of the solution which last reset each cell's g(n) and rhs(n) values. A cell's values
+        are only valid if its stamp equals 'searchId', so that a new solution can be started in O(1).
+     */
+    private final int[] stamp;
+    private int searchId = 0;
+    // The open set, an indexed min-heap of inconsistent cells ordered by their two part key
+    private final IndexedHeap openSet;
+    // Scratch space for the neighbours of a cell
+    private final int[] neighbours = new int[4];
+    private final int[] predecessors = new int[4];
+    // The start cell at the time the key modifier was last updated
+    private int last = NONE;
+    // The key modifier, the sum of the heuristic distances the start cell has moved
+    private int keyModifier = 0;
+    // Whether the previous solution has to be discarded at the next run
+    private boolean initialise = true;
+
+    // Create a planner with its own empty grid of the given width and height
+    public DStarLite(int width, int height) {
+        this(width, height, MAX_KEY_MODIFIER);
+    }
+
+    // Create a planner which starts afresh once the key modifier grows beyond the given limit, so the restart can be tested
+    DStarLite(int width, int height, int maxKeyModifier) {
+        super(new Grid(width, height));
+        this.maxKeyModifier = maxKeyModifier;
+        this.planned = new Grid(width, height);
+        this.g = new int[grid.getSize()];
+        this.rhs = new int[grid.getSize()];
+        this.stamp = new int[grid.getSize()];
+        this.openSet = new IndexedHeap(grid.getSize(), recorder);
+    }
+
+    @Override
+    public void setEnd(int x, int y) {
+        int index = grid.index(x, y);
+        if(index != end) {
+            end = index;
+            initialise = true;
+        }
+    }
+
+    @Override
+    public void setWall(int x, int y, boolean wall) {
+        int index = grid.index(x, y);
+        if(grid.isWall(index) != wall) {
+            grid.setWall(index, wall);
+            touch(index);
+        }
+    }
+
+    // Reset all walls (to not be walls), each wall that is reset is recorded as touched
+    @Override
+    public void resetWalls() {
+        for(int wall = grid.nextWall(0); wall != NONE; wall = grid.nextWall(wall + 1))
+            touch(wall);
+        grid.resetWalls();
+    }
+
+    /*
+        Run the planner. If the end cell has changed since the last run the search starts afresh,
+        otherwise the movement of the start cell is added to the key modifier and every touched cell
+        whose wall differs from the previous run is repaired, before the shortest path is recomputed.
+        As with AStar.run, true is returned and the path is stored if a path is found.
+     */
+    @Override
+    public boolean run() {
+        checkEndpoints();
+        recorder.start();
+
+        if(initialise || keyModifier > maxKeyModifier) {
+            initialise();
+        } else if(start != last) {
+            keyModifier += calculateH(last);
+            last = start;
+        }
+        applyWallChanges();
+        computeShortestPath();
+
+        setPath(value(g, start) == INFINITY ? null : extractPath());
+        recorder.finish(getClass(), path);
+        return path != null;
+    }
+
+    // Discard the previous solution and begin a new one with only the end cell consistent
+    private void initialise() {
+        if(++searchId == 0) {
+            Arrays.fill(stamp, 0);
+            searchId = 1;
+        }
+        openSet.clear();
+        keyModifier = 0;
+        last = start;
+        // The walls planned around are brought up to date without repairs, as nothing has been planned yet
+        for(int i = 0; i < touchedCount; i++)
+            planned.setWall(touched[i], grid.isWall(touched[i]));
+        touchedCount = 0;
+        visit(end);
+        rhs[end] = 0;
+        openSet.update(end, calculateKey(end));
+        initialise = false;
+    }
+
+    // Repair the solution around each touched cell whose wall differs from when the planner last ran
+    private void applyWallChanges() {
+        for(int i = 0; i < touchedCount; i++) {
+            int cell = touched[i];
+            boolean wall = grid.isWall(cell);
+            if(planned.isWall(cell) == wall)
+                continue;
+            planned.setWall(cell, wall);
+            // The cost of every edge to the cell has changed, so the cell and its neighbours are updated
+            updateVertex(cell);
+            int count = grid.neighbours(cell, predecessors);
+            for(int j = 0; j < count; j++)
+                updateVertex(predecessors[j]);
+        }
+        touchedCount = 0;
+    }
+
+    /*
+        Expand inconsistent cells (those whose g(n) differs from rhs(n)) in key order until the start
+        cell is consistent and no cell in the open set has a lower key than it.
+     */
+    private void computeShortestPath() {
+        visit(start);
+        while(!openSet.isEmpty()
+                && (openSet.peekKey() < calculateKey(start) || rhs[start] != g[start])) {
+            int current = openSet.peek();
+            recorder.expand();
+            long oldKey = openSet.peekKey();
+            long newKey = calculateKey(current);
+            if(oldKey < newKey) {
+                // The key is out of date because the start cell has moved since it was queued
+                openSet.update(current, newKey);
+            } else if(g[current] > rhs[current]) {
+                // Over-consistent, the cell's distance has decreased
+                g[current] = rhs[current];
+                openSet.remove(current);
+                updatePredecessors(current);
+            } else {
+                // Under-consistent, the cell's distance has increased
+                g[current] = INFINITY;
+                updateVertex(current);
+                updatePredecessors(current);
+            }
+        }
+    }
+
+    // Update every neighbour of the given cell, as in a grid the predecessors are the neighbours
+    private void updatePredecessors(int cell) {
+        int count = grid.neighbours(cell, predecessors);
+        for(int i = 0; i < count; i++)
+            updateVertex(predecessors[i]);
+    }
+
+    /*
+        Recalculate rhs(n) of the given cell from its neighbours, then ensure the cell is in the open
+        set if and only if it is inconsistent. Walls can not be entered or left, so their rhs(n) is
+        infinite, and walls which free up count as walls until they are reset.
+     */
+    private void updateVertex(int cell) {
+        visit(cell);
+        if(cell != end) {
+            int best = INFINITY;
+            if(!planned.isWall(cell)) {
+                int count = grid.neighbours(cell, neighbours);
+                for(int i = 0; i < count; i++) {
+                    int neighbour = neighbours[i];
+                    if(planned.isWall(neighbour) || value(g, neighbour) == INFINITY)
+                        continue;
+                    best = Math.min(best, g[neighbour] + 1);
+                }
+            }
+            rhs[cell] = best;
+        }
+        if(g[cell] != rhs[cell])
+            openSet.update(cell, calculateKey(cell));
+        else
+            openSet.remove(cell);
+    }
+
+    /*
+        Calculate the key of the given cell. The first part is min(g(n), rhs(n)) + h(n) + the key
+        modifier, the second is min(g(n), rhs(n)), and they are packed into one long so that the
+        heap orders by the first part and then the second.
+     */
+    private long calculateKey(int cell) {
+        int min = Math.min(value(g, cell), value(rhs, cell));
+        if(min == INFINITY)
+            return Long.MAX_VALUE;
+        return ((long) (min + calculateH(cell) + keyModifier) << 32) | min;
+    }
+
+    /*
+        Follow the solution from the start cell to the end cell, at each step moving to the neighbour
+        with the lowest g(n) value, returning the index of each cell along the way.
+     */
+    private int[] extractPath() {
+        int[] cells = new int[g[start] + 1];
+        int length = 0;
+        int current = start;
+        cells[length++] = current;
+        while(current != end) {
+            int next = NONE;
+            int best = INFINITY;
+            int count = grid.neighbours(current, neighbours);
+            for(int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if(planned.isWall(neighbour) || value(g, neighbour) >= best)
+                    continue;
+                best = g[neighbour];
+                next = neighbour;
+            }
+            // Guard against a broken chain, which would otherwise loop forever
+            if(next == NONE || length > grid.getSize())
+                return null;
+            current = next;
+            if(length == cells.length)
+                cells = Arrays.copyOf(cells, cells.length * 2);
+            cells[length++] = current;
+        }
+        return length == cells.length ? cells : Arrays.copyOf(cells, length);
+    }
+
+    // Get the value of the given cell from the given array, cells not yet reached are infinite
+    private int value(int[] values, int cell) {
+        return stamp[cell] == searchId ? values[cell] : INFINITY;
+    }
+
+    // Reset the values of the given cell if they do not belong to the current solution
+    private void visit(int cell) {
+        if(stamp[cell] != searchId) {
+            g[cell] = INFINITY;
+            rhs[cell] = INFINITY;
+            stamp[cell] = searchId;
+        }
+    }
+
+    // Record that the wall of the given cell has been set or reset
+    private void touch(int cell) {
+        if(touchedCount == touched.length)
+            touched = Arrays.copyOf(touched, touchedCount * 2);
+        touched[touchedCount++] = cell;
+    }
+
+    /*
+        Calculate the h(n) value for the given cell, the Manhattan distance to the start cell. This is
+        not the pluggable heuristic, as the keys already in the open set were calculated with the
+        heuristic as it was, which a heuristic whose tables change between runs would invalidate.
+     */
+    private int calculateH(int cell) {
+        return manhattan(cell, start);
+    }
+}
@@ -0,0 +1,142 @@
+package com.callumbirks.pathfinder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    This class floods the grid breadth-first from the start cell, recording the distance to and the
+    previous cell of every reachable cell. As every move costs 1, breadth-first order is shortest
+    path order, so after a single flood the shortest path to any reachable cell can be read back
+    without searching again, and the cells are held in the order they were reached, the last being
+    the farthest from the start cell.
+
+    Walls which free up are treated as in GridAStar.expand, a cell is reached if it is not blocked
+    at the distance it is first reached at. So a cell behind a wall which frees up too late for the
+    shortest route is reported as not reached, even when a longer route would get there after the
+    wall has gone; the flood measures the space the snake can reach without waiting.
+
+    It also implements Pathfinder, where run floods from the start cell and stores the path to the
+    end cell, so it can be used as an engine itself.
+ */
+public class DistanceFlood extends GridPathfinder {
+    // The distance of each cell from the start cell
+    private final int[] distance;
+    // The index of the previous cell along the path for each cell
+    private final int[] previous;
+    // The id of the flood which last reached each cell, see GridAStar
+    private final int[] stamp;
+    private int searchId = 0;
+    // The reached cells in the order they were reached, this is also the flood's queue
+    private final int[] order;
+    // The number of cells reached by the last flood
+    private int reached = 0;
+    // Scratch space for the neighbours of the cell currently being expanded
+    private final int[] neighbours = new int[4];
+
+    // Create a flood with its own empty grid of the given width and height
+    public DistanceFlood(int width, int height) {
+        this(new Grid(width, height));
+    }
+
+    // Create a flood over the given grid
+    public DistanceFlood(Grid grid) {
+        super(grid);
+        distance = new int[grid.getSize()];
+        previous = new int[grid.getSize()];
+        stamp = new int[grid.getSize()];
+        order = new int[grid.getSize()];
+    }
+
+    // Flood from the start cell and store the path to the end cell, returning whether it was reached
+    @Override
+    public boolean run() {
+        checkEndpoints();
+        recorder.start();
+        fill();
+        setPath(cellsTo(end));
+        recorder.finish(getClass(), path);
+        return path != null;
+    }
+
+    // Flood the grid from the start cell, replacing the results of the previous flood
+    public void flood() {
+        if(start == NONE)
+            throw new IllegalArgumentException("Start node has not been set.");
+        recorder.start();
+        fill();
+        recorder.finish(getClass(), null);
+    }
+
+    // Flood the grid from the start cell, each cell reached is counted as pushed, popped and expanded
+    private void fill() {
+        if(++searchId == 0) {
+            Arrays.fill(stamp, 0);
+            searchId = 1;
+        }
+        stamp[start] = searchId;
+        distance[start] = 0;
+        previous[start] = NONE;
+        order[0] = start;
+        reached = 1;
+        for(int head = 0; head < reached; head++) {
+            int current = order[head];
+            recorder.pop();
+            recorder.expand();
+            int count = grid.neighbours(current, neighbours);
+            int depth = distance[current] + 1;
+            for(int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if(stamp[neighbour] == searchId || isBlocked(neighbour, depth))
+                    continue;
+                stamp[neighbour] = searchId;
+                distance[neighbour] = depth;
+                previous[neighbour] = current;
+                order[reached++] = neighbour;
+                recorder.push();
+            }
+        }
+    }
+
+    // Get the distance from the start cell to the cell at the given co-ordinates, or -1 if it was not reached
+    public int getDistance(int x, int y) {
+        int cell = grid.index(x, y);
+        return stamp[cell] == searchId ? distance[cell] : -1;
+    }
+
+    // Getter for the number of cells reached by the last flood, including the start cell
+    public int getReachedCount() {
+        return reached;
+    }
+
+    // Get the co-ordinates of the cell farthest from the start cell, or null if no other cell was reached
+    public int[] getFarthest() {
+        if(reached <= 1)
+            return null;
+        int cell = order[reached - 1];
+        return new int[] { grid.getX(cell), grid.getY(cell) };
+    }
+
+    // Get the shortest path from the start cell to the cell at the given co-ordinates, or null if it was not reached
+    public List<Node> getPathTo(int x, int y) {
+        CellPath path = getCompactPathTo(x, y);
+        return path == null ? null : path.toNodes();
+    }
+
+    // Get the shortest path from the start cell to the cell at the given co-ordinates as a CellPath, or null if it was not reached
+    public CellPath getCompactPathTo(int x, int y) {
+        int[] cells = cellsTo(grid.index(x, y));
+        return cells == null ? null : new CellPath(cells, grid.getWidth());
+    }
+
+    // Follow the previous cells back from the given cell to the start cell, or return null if it was not reached
+    private int[] cellsTo(int cell) {
+        if(stamp[cell] != searchId)
+            return null;
+        int[] cells = new int[distance[cell] + 1];
+        for(int i = cells.length - 1; cell != NONE; i--) {
+            cells[i] = cell;
+            cell = previous[cell];
+        }
+        return cells;
+    }
+}
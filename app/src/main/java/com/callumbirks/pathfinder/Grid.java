@@ -0,0 +1,349 @@
+package com.callumbirks.pathfinder;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/*
+    The Grid class stores the walls of a width x height grid as a bitset, one bit per cell.
+    Cells are addressed by a single index, y * width + x, so that search engines can keep
+    their per-cell state in flat primitive arrays instead of allocating a Node per cell.
+    Neighbours are calculated arithmetically from the index rather than stored.
+
+    The bitset is split into pages of PAGE_SIZE consecutive cells. Every page starts out as one
+    shared page with no walls, and a page of its own is only allocated the first time a wall is set
+    in it, so a very large board costs memory (and construction time) in proportion to the parts of
+    it with walls, rather than to its area. Finding the page of a cell is a shift of its index, so
+    reading a wall costs one more array load than a flat bitset, and nothing else.
+
+    The pages are runs of cells in index order, not square tiles, so a page is several whole rows of
+    a narrow board, or part of one row of a board wider than PAGE_SIZE, and the pages touched by
+    walls or by a search (see PagedIntArray) grow with the number of rows spanned rather than with
+    the area covered. A query down a column of a 10000 wide board touches a page in every row it
+    crosses, where 64x64 tiles would be one page every 64 rows. Only SparseAStar keeps its per-cell
+    state in pages. The other engines allocate it for the whole board up front, and AStar still
+    allocates a Node for every cell.
+
+    A wall can also be given the time at which it frees up, for walls which are only there for a
+    while, such as the segments of the snake's body, which leave their cells one by one from the
+    tail. With the grid's current time, a search which reaches such a wall after 'depth' moves can
+    treat it as free if it has freed up by then, see isBlocked.
+
+    Reading a grid never writes to it, so once it is frozen (see freeze) any number of threads can
+    search it at once, each with its own SearchContext, without copying it or locking.
+ */
+public class Grid {
+    // The free time of walls which never free up
+    public static final int NEVER = Integer.MAX_VALUE;
+    // The number of cells in each page is 1 << PAGE_SHIFT, that is 4096, or 64 words of the bitset
+    static final int PAGE_SHIFT = 12;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_WORDS = PAGE_SIZE >>> 6;
+    // The page shared by every part of every grid which has no walls, it must never be written to
+    private static final long[] EMPTY_PAGE = new long[PAGE_WORDS];
+
+    // The number of columns in the grid
+    private final int width;
+    // The number of rows in the grid
+    private final int height;
+    /*
+        The pages of the wall bitset, bit (index & 63) of word ((index >>> 6) & 63) of page
+        (index >>> PAGE_SHIFT) is set when the cell is a wall. Pages without walls are EMPTY_PAGE.
+     */
+    private final long[][] walls;
+    // The pages of the time at which each wall frees up, a page is only allocated once a wall in it is given a time
+    private int[][] freeTimes = null;
+    // The current time, which the free times of the walls are relative to
+    private int time = 0;
+    // Whether the grid can no longer be changed, see freeze
+    private boolean frozen = false;
+
+    public Grid(int width, int height) {
+        if(width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Grid width and height must be positive.");
+        if((long) width * height > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid is too large to be indexed.");
+        this.width = width;
+        this.height = height;
+        // Round up to a whole number of pages, all of which start out empty
+        this.walls = new long[(int) (((long) width * height + PAGE_SIZE - 1) >>> PAGE_SHIFT)][];
+        Arrays.fill(walls, EMPTY_PAGE);
+    }
+
+    // Getter for the width of the grid
+    public int getWidth() {
+        return width;
+    }
+
+    // Getter for the height of the grid
+    public int getHeight() {
+        return height;
+    }
+
+    // Getter for the total number of cells in the grid
+    public int getSize() {
+        return width * height;
+    }
+
+    // Calculate the index of the cell at the given x and y co-ordinates
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    // Calculate the x co-ordinate of the cell at the given index
+    public int getX(int index) {
+        return index % width;
+    }
+
+    // Calculate the y co-ordinate of the cell at the given index
+    public int getY(int index) {
+        return index / width;
+    }
+
+    // Check whether the given x and y co-ordinates are within the bounds of the grid
+    public boolean isInGrid(int x, int y) {
+        return x < width && y < height && x >= 0 && y >= 0;
+    }
+
+    // Check whether the cell at the given index is a wall
+    public boolean isWall(int index) {
+        return (walls[index >>> PAGE_SHIFT][(index >>> 6) & (PAGE_WORDS - 1)] & (1L << index)) != 0;
+    }
+
+    // Check whether the cell at the given x and y co-ordinates is a wall
+    public boolean isWall(int x, int y) {
+        return isWall(index(x, y));
+    }
+
+    // Set whether the cell at the given index is a wall, a wall set this way never frees up
+    public void setWall(int index, boolean wall) {
+        checkNotFrozen();
+        if(wall) {
+            pageForWrite(index)[(index >>> 6) & (PAGE_WORDS - 1)] |= 1L << index;
+            int[] times = freeTimes == null ? null : freeTimes[index >>> PAGE_SHIFT];
+            if(times != null)
+                times[index & (PAGE_SIZE - 1)] = NEVER;
+        } else {
+            // Clearing a wall in the empty page would write to the shared page, and there is nothing to clear
+            long[] page = walls[index >>> PAGE_SHIFT];
+            if(page != EMPTY_PAGE)
+                page[(index >>> 6) & (PAGE_WORDS - 1)] &= ~(1L << index);
+        }
+    }
+
+    // Get the page of the wall bitset holding the given cell, allocating it if it is still the empty page
+    private long[] pageForWrite(int index) {
+        long[] page = walls[index >>> PAGE_SHIFT];
+        if(page == EMPTY_PAGE) {
+            page = new long[PAGE_WORDS];
+            walls[index >>> PAGE_SHIFT] = page;
+        }
+        return page;
+    }
+
+    // Getter for the time at which the wall at the given index frees up, NEVER if it has not been given one
+    private int freeTime(int index) {
+        if(freeTimes == null)
+            return NEVER;
+        int[] times = freeTimes[index >>> PAGE_SHIFT];
+        return times == null ? NEVER : times[index & (PAGE_SIZE - 1)];
+    }
+
+    // Set the cell at the given index to be a wall which frees up at the given time
+    public void setWallUntil(int index, int freeTime) {
+        checkNotFrozen();
+        if(freeTimes == null)
+            freeTimes = new int[walls.length][];
+        int[] times = freeTimes[index >>> PAGE_SHIFT];
+        if(times == null) {
+            times = new int[PAGE_SIZE];
+            Arrays.fill(times, NEVER);
+            freeTimes[index >>> PAGE_SHIFT] = times;
+        }
+        pageForWrite(index)[(index >>> 6) & (PAGE_WORDS - 1)] |= 1L << index;
+        times[index & (PAGE_SIZE - 1)] = freeTime;
+    }
+
+    // Set the cell at the given x and y co-ordinates to be a wall which frees up at the given time
+    public void setWallUntil(int x, int y, int freeTime) {
+        setWallUntil(index(x, y), freeTime);
+    }
+
+    // Getter for the current time
+    public int getTime() {
+        return time;
+    }
+
+    /*
+        Set the current time. Free times only have to be consistent with each other and with the
+        current time, so a wall's free time can be left as it is when everything is delayed by a
+        move (such as when the snake grows), and the current time moved back by one instead.
+     */
+    public void setTime(int time) {
+        checkNotFrozen();
+        this.time = time;
+    }
+
+    // Check whether the cell at the given index is a wall which never frees up
+    public boolean isPermanentWall(int index) {
+        return isWall(index) && freeTime(index) == NEVER;
+    }
+
+    /*
+        Check whether the cell at the given index is blocked when it is reached after the given
+        number of moves from the current time. Walls without a free time are always blocked, and
+        cells which are not walls never are.
+     */
+    public boolean isBlocked(int index, int depth) {
+        return isWall(index) && (freeTimes == null || freeTime(index) > time + depth);
+    }
+
+    // Set whether the cell at the given x and y co-ordinates is a wall
+    public void setWall(int x, int y, boolean wall) {
+        setWall(index(x, y), wall);
+    }
+
+    /*
+        Find the index of the first wall at or after the given index, or -1 if there are no more walls.
+        Words of the bitset with no walls are skipped 64 cells at a time, and pages which have never
+        had walls PAGE_SIZE cells at a time, so looping through the walls of the grid with this is
+        proportional to the number of walls rather than the number of cells.
+     */
+    public int nextWall(int from) {
+        if(from >= getSize())
+            return -1;
+        int word = from >>> 6;
+        long bits = walls[word >>> (PAGE_SHIFT - 6)][word & (PAGE_WORDS - 1)] & (-1L << from);
+        int words = walls.length * PAGE_WORDS;
+        while(bits == 0) {
+            if(++word == words)
+                return -1;
+            // Skip to the end of a page with no walls
+            if(walls[word >>> (PAGE_SHIFT - 6)] == EMPTY_PAGE) {
+                word |= PAGE_WORDS - 1;
+                continue;
+            }
+            bits = walls[word >>> (PAGE_SHIFT - 6)][word & (PAGE_WORDS - 1)];
+        }
+        int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+        return index < getSize() ? index : -1;
+    }
+
+    // Reset all walls (to not be walls), this drops every page, returning them all to the empty page
+    public void resetWalls() {
+        checkNotFrozen();
+        Arrays.fill(walls, EMPTY_PAGE);
+    }
+
+    // Getter for the number of 64-bit words of the wall bitset, enough for one bit per cell
+    public int getWordCount() {
+        return (int) (((long) getSize() + 63) >>> 6);
+    }
+
+    // Getter for the given 64-bit word of the wall bitset, which holds the cells from index word * 64, see MapFile
+    public long getWord(int word) {
+        return walls[word >>> (PAGE_SHIFT - 6)][word & (PAGE_WORDS - 1)];
+    }
+
+    /*
+        Replace every wall with those of the given words of a bitset, getWordCount of them in index
+        order as getWord gives them, see MapFile. Pages whose words are all zero stay the empty
+        page, so loading a mostly empty map allocates little. The walls loaded never free up.
+     */
+    void setWords(LongBuffer words) {
+        checkNotFrozen();
+        if(words.remaining() < getWordCount())
+            throw new IllegalArgumentException("Too few words for a grid of " + getSize() + " cells.");
+        freeTimes = null;
+        long[] scratch = new long[PAGE_WORDS];
+        int remaining = getWordCount();
+        for(int page = 0; page < walls.length; page++) {
+            int count = Math.min(PAGE_WORDS, remaining);
+            remaining -= count;
+            words.get(scratch, 0, count);
+            if(remaining == 0 && (getSize() & 63) != 0)
+                // Bits past the last cell must stay clear, or nextWall would find them
+                scratch[count - 1] &= (1L << getSize()) - 1;
+            boolean empty = true;
+            for(int word = 0; word < count && empty; word++)
+                empty = scratch[word] == 0;
+            // An empty page's scratch is still all zero, so it can be reused for the next page
+            if(empty) {
+                walls[page] = EMPTY_PAGE;
+            } else {
+                walls[page] = scratch;
+                scratch = new long[PAGE_WORDS];
+            }
+        }
+    }
+
+    // Getter for the number of pages of the wall bitset which have been allocated, out of getPageCount
+    public int getAllocatedPages() {
+        int count = 0;
+        for(long[] page : walls) {
+            if(page != EMPTY_PAGE)
+                count++;
+        }
+        return count;
+    }
+
+    // Getter for the number of pages the cells of the grid are split into
+    public int getPageCount() {
+        return walls.length;
+    }
+
+    /*
+        Freeze the grid, so that its walls and time can no longer be changed, and return it. A frozen
+        grid is only ever read, so it can be shared by searches on any number of threads, as long as
+        it is handed to them after it is frozen (such as through an ExecutorService). Freezing
+        cannot be undone, a board which keeps changing should be copied with copy() and the copy frozen.
+     */
+    public Grid freeze() {
+        frozen = true;
+        return this;
+    }
+
+    // Check whether the grid has been frozen
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    // Create a copy of the grid, its walls, free times and time, which is not frozen
+    public Grid copy() {
+        Grid copy = new Grid(width, height);
+        for(int page = 0; page < walls.length; page++) {
+            if(walls[page] != EMPTY_PAGE)
+                copy.walls[page] = walls[page].clone();
+        }
+        if(freeTimes != null) {
+            copy.freeTimes = new int[freeTimes.length][];
+            for(int page = 0; page < freeTimes.length; page++) {
+                if(freeTimes[page] != null)
+                    copy.freeTimes[page] = freeTimes[page].clone();
+            }
+        }
+        copy.time = time;
+        return copy;
+    }
+
+    // Throw an IllegalStateException if the grid has been frozen
+    private void checkNotFrozen() {
+        if(frozen)
+            throw new IllegalStateException("Grid is frozen and cannot be changed.");
+    }
+
+    /*
+        Calculate the neighbours of the cell at the given index and write their indices into 'out',
+        which must have room for at least 4 values. Neighbours are written in the same order as
+        Node.setNeighbours (up, right, down, left) and those outside of the grid are skipped.
+        The number of neighbours written is returned.
+     */
+    public int neighbours(int index, int[] out) {
+        int x = getX(index);
+        int count = 0;
+        if(index >= width) out[count++] = index - width;
+        if(x < width - 1) out[count++] = index + 1;
+        if(index < getSize() - width) out[count++] = index + width;
+        if(x > 0) out[count++] = index - 1;
+        return count;
+    }
+}
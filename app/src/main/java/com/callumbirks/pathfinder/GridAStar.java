@@ -0,0 +1,78 @@
+package com.callumbirks.pathfinder;
+
+/*
+    This class is an alternate engine for the A* algorithm which keeps the same public surface as
+    the AStar class, but does not allocate a Node object for each cell of the grid. The g(n) and
+    previous values of every cell are held in flat int arrays indexed by y * width + x, and the
+    walls are held in the bitset of a Grid. Node objects are only created for the cells of the path
+    that is returned, so that the Game can consume it exactly as it does the path from AStar.
+
+    The search itself is run on a SearchContext of the engine's own, so it is the same A* loop that
+    answers the queries of a BatchPathfinder, with the engine adding its heuristic and reservations.
+ */
+public class GridAStar extends GridPathfinder {
+    // The scratch space and A* loop the engine searches with
+    private final SearchContext context;
+    // The g(n) value of each cell, the context's own array
+    protected final int[] g;
+    // The index of the previous cell along the path for each cell, the context's own array
+    protected final int[] previous;
+    // Expands each cell taken from the open set, see expand
+    private final SearchContext.Expander expander = this::expand;
+
+    // Create an engine with its own empty grid of the given width and height
+    public GridAStar(int width, int height) {
+        this(new Grid(width, height));
+    }
+
+    // Create an engine which searches the given grid
+    public GridAStar(Grid grid) {
+        super(grid);
+        this.context = new SearchContext(grid.getSize(), recorder);
+        this.g = context.g;
+        this.previous = context.previous;
+    }
+
+    /*
+        Run the algorithm between the start and end cells. As with AStar.run, the start and end
+        cells must have been set first. If a path is found it is stored in the 'path' variable
+        and true is returned, otherwise the path is set to null and false is returned.
+     */
+    @Override
+    public boolean run() {
+        checkEndpoints();
+        recorder.start();
+        heuristic.prepare();
+        setPath(context.run(start, end, heuristic, expander) ? context.reconstructCells(grid, end) : null);
+        recorder.finish(getClass(), path);
+        return path != null;
+    }
+
+    /*
+        Expand the given cell by relaxing the edge to each of its neighbours which is not blocked,
+        see SearchContext.expand. The neighbours are reached after g(n) + 1 moves, so a wall which
+        has freed up by then is not blocked.
+
+        Each cell is only searched from the first time it can be reached, so the search is not
+        complete where walls free up. The agent can not wait, so reaching a cell later can be better;
+        a detour can reach a wall after it has freed up where the direct route reaches it too soon,
+        and such a path is not found (nor one which is shorter for taking such a detour). Searching
+        (cell, arrival time) states would find them, but it multiplies the search by how long the
+        walls take to free up, and many of the waits it finds loop back through cells the snake's
+        own body has just taken, which the grid does not hold as walls. So when no path is found the
+        Planner falls back to the farthest cell a flood reaches, which waits the walls out instead.
+        Reservations can also start after a cell is first reached, and are missed the same way.
+     */
+    protected void expand(int current) {
+        context.expand(grid, current, reservations, agent);
+    }
+
+    /*
+        Relax the edge between two cells with the given cost. If the path to 'to' through 'from'
+        is shorter than its current g(n), then 'from' becomes its previous cell and it is added to
+        the open set (or has its f(n) value lowered if it is already in the open set).
+     */
+    protected final void relax(int from, int to, int cost) {
+        context.relax(from, to, cost);
+    }
+}
@@ -0,0 +1,180 @@
+package com.callumbirks.pathfinder;
+
+import java.util.List;
+
+/*
+    The base class of the search engines which work over a Grid rather than Node objects. It holds
+    the grid, the start and end cells as indices, and the path, and implements the parts of the
+    Pathfinder interface which are the same for every engine.
+ */
+public abstract class GridPathfinder implements Pathfinder {
+    // Value used for distances to cells which have not been reached yet
+    protected static final int INFINITY = Integer.MAX_VALUE;
+    // Value used for the start, end and previous cell when there is no cell
+    protected static final int NONE = -1;
+
+    // The grid of walls which is searched
+    protected final Grid grid;
+    // The index of the start cell
+    protected int start = NONE;
+    // The index of the end cell
+    protected int end = NONE;
+    // A List of Node objects which represents the path found by the engine
+    protected List<Node> path = null;
+    // The path as a CellPath, and the list of Nodes it matches, see setPath and getCompactPath
+    private CellPath compactPath = null;
+    private List<Node> compactSource = null;
+    // Counts the work done by each run, see SearchStats
+    protected final SearchRecorder recorder = new SearchRecorder();
+    // The heuristic used by the engines which estimate distances, the Manhattan distance unless another is set
+    protected Heuristic heuristic;
+    // The reservations of other agents which are avoided as walls are, or null when planning alone, see setReservations
+    protected ReservationTable reservations = null;
+    // The agent searching, whose own reservations are ignored
+    protected int agent = ReservationTable.SHARED;
+
+    protected GridPathfinder(Grid grid) {
+        this.grid = grid;
+        this.heuristic = Heuristic.manhattan(grid);
+    }
+
+    // Getter for the grid searched by this engine
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /*
+        Setter for the heuristic. It is told about every wall set through this engine, so walls
+        should not be set on the grid directly while a heuristic with tables is in use.
+     */
+    public void setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /*
+        Set the reservations of the other agents on the board, which GridAStar and DistanceFlood treat
+        as walls for as long as they are reserved, for the given agent. A reservation is checked at
+        the time a cell is first reached, so a path which would only get past it by arriving later is
+        not found.
+     */
+    public void setReservations(ReservationTable reservations, int agent) {
+        this.reservations = reservations;
+        this.agent = agent;
+    }
+
+    @Override
+    public void setStart(int x, int y) {
+        start = grid.index(x, y);
+    }
+
+    @Override
+    public void setEnd(int x, int y) {
+        end = grid.index(x, y);
+    }
+
+    @Override
+    public void setWall(int x, int y, boolean wall) {
+        grid.setWall(x, y, wall);
+        heuristic.wallChanged(grid.index(x, y), wall);
+    }
+
+    /*
+        The cell is set as a wall first, so that engines which track changes to walls see it. So the
+        heuristic is told of the wall before its free time is set, see LandmarkHeuristic.prepare.
+     */
+    @Override
+    public void setWallUntil(int x, int y, int freeTime) {
+        setWall(x, y, true);
+        grid.setWallUntil(x, y, freeTime);
+    }
+
+    @Override
+    public void setTime(int time) {
+        grid.setTime(time);
+    }
+
+    @Override
+    public boolean isWall(int x, int y) {
+        return grid.isWall(x, y);
+    }
+
+    @Override
+    public void resetWalls() {
+        grid.resetWalls();
+        heuristic.wallsReset();
+    }
+
+    @Override
+    public List<Node> getPath() {
+        return path;
+    }
+
+    /*
+        The engines set their path with setPath, which builds the compact path alongside it. An engine
+        which sets 'path' to a list of its own instead has the compact path built from that list the
+        first time it is asked for.
+     */
+    @Override
+    public CellPath getCompactPath() {
+        if(compactSource != path) {
+            compactPath = CellPath.of(path, grid.getWidth());
+            compactSource = path;
+        }
+        return compactPath;
+    }
+
+    // Set the path to the given cell indices, from the start cell to the end cell, or to no path if they are null
+    protected void setPath(int[] cells) {
+        compactPath = cells == null ? null : new CellPath(cells, grid.getWidth());
+        path = cells == null ? null : compactPath.toNodes();
+        compactSource = path;
+    }
+
+    @Override
+    public boolean isPathSet() {
+        return path != null;
+    }
+
+    @Override
+    public boolean isOnPath(int x, int y) {
+        return isPathSet() && getCompactPath().contains(x, y);
+    }
+
+    @Override
+    public boolean isInGrid(int x, int y) {
+        return grid.isInGrid(x, y);
+    }
+
+    @Override
+    public SearchStats getLastStats() {
+        return recorder.getLast();
+    }
+
+    // Throw an IllegalArgumentException if the start or end cell has not been set, as AStar.run does
+    protected void checkEndpoints() {
+        if(start == NONE)
+            throw new IllegalArgumentException("Start node has not been set.");
+        if(end == NONE)
+            throw new IllegalArgumentException("End node has not been set");
+    }
+
+    // Check whether the cell at the given index is blocked after the given number of moves, by a wall or a reservation
+    protected boolean isBlocked(int index, int depth) {
+        return grid.isBlocked(index, depth)
+                || (reservations != null && reservations.isReserved(index, depth, agent));
+    }
+
+    /*
+        Calculate the Manhattan distance between the cells at the given indices. As the grid is
+        4-connected with a cost of 1 per move this is an admissible heuristic, and it needs no
+        floating point arithmetic.
+     */
+    protected int manhattan(int a, int b) {
+        return Math.abs(grid.getX(a) - grid.getX(b)) + Math.abs(grid.getY(a) - grid.getY(b));
+    }
+
+    // Create a Node for the cell at the given index
+    protected Node nodeAt(int index) {
+        return new Node(grid.getX(index), grid.getY(index));
+    }
+}
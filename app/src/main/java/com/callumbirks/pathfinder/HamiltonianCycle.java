@@ -0,0 +1,123 @@
+package com.callumbirks.pathfinder;
+
+/*
+    This class is a planner rather than a search. When it is created it lays a Hamiltonian cycle over
+    the grid, a closed loop which visits every cell exactly once. A snake which only ever follows the
+    cycle can never collide with itself, as its body always lies along the cycle behind its head, so
+    it can always fill the whole board. Following the cycle alone is slow though, so the planner also
+    takes shortcuts towards the end cell (the food), by jumping ahead along the cycle to a neighbour
+    of the start cell (the head), as long as the jump stays behind the tail in cycle order and does
+    not pass the end cell. This keeps the body in cycle order, so the cycle stays safe to follow.
+
+    Each run only looks at the 4 neighbours of the start cell, so it is O(1) however full the board
+    is. The path it returns is just the start cell and the cell to move to next, so it is run again
+    on every move. The position of the tail has to be given with setTail before each run.
+
+    A grid graph only has a Hamiltonian cycle if it has an even number of cells, so the width or the
+    height of the grid must be even.
+ */
+public class HamiltonianCycle extends GridPathfinder {
+    // The number of cells to keep free between the head and the tail after a shortcut, so that growing does not close the gap
+    private static final int SHORTCUT_MARGIN = 3;
+
+    // The cells of the grid in the order the cycle visits them
+    private final int[] cycle;
+    // The position of each cell along the cycle, the inverse of 'cycle'
+    private final int[] order;
+    // The index of the tail cell, or NONE if the snake is only its head
+    private int tail = NONE;
+    // The number of moves the tail will stay where it is, as the snake is still growing
+    private int growth = 0;
+    // Scratch space for the neighbours of the start cell
+    private final int[] neighbours = new int[4];
+
+    // Create a planner with its own empty grid of the given width and height
+    public HamiltonianCycle(int width, int height) {
+        this(new Grid(width, height));
+    }
+
+    // Create a planner for the given grid, the cycle is laid when it is created
+    public HamiltonianCycle(Grid grid) {
+        super(grid);
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        if(width < 2 || height < 2 || (width % 2 != 0 && height % 2 != 0))
+            throw new IllegalArgumentException("A Hamiltonian cycle needs a grid of at least 2x2 with an even width or height.");
+        cycle = new int[grid.getSize()];
+        order = new int[grid.getSize()];
+        layCycle();
+    }
+
+    /*
+        Lay the cycle. With an even number of rows, it runs from (1, 0) along each row in turn, right
+        along the even rows and back left along the odd rows, skipping the first column, then returns
+        up the first column to (0, 0), next to where it started. With an odd number of rows the same
+        is done with the rows and columns swapped.
+     */
+    private void layCycle() {
+        boolean byRows = grid.getHeight() % 2 == 0;
+        int lines = byRows ? grid.getHeight() : grid.getWidth();
+        int length = byRows ? grid.getWidth() : grid.getHeight();
+        int position = 0;
+        for(int line = 0; line < lines; line++) {
+            for(int i = 1; i < length; i++) {
+                int along = line % 2 == 0 ? i : length - i;
+                add(position++, byRows ? grid.index(along, line) : grid.index(line, along));
+            }
+        }
+        for(int line = lines - 1; line >= 0; line--)
+            add(position++, byRows ? grid.index(0, line) : grid.index(line, 0));
+    }
+
+    // Put the cell at the given position along the cycle
+    private void add(int position, int cell) {
+        cycle[position] = cell;
+        order[cell] = position;
+    }
+
+    /*
+        Set the cell the tail is in, and the number of moves it will stay there as the snake is still
+        growing. If the tail is in the start cell, the snake is only its head.
+     */
+    public void setTail(int x, int y, int growth) {
+        this.tail = grid.index(x, y);
+        this.growth = growth;
+    }
+
+    /*
+        Choose the next move from the start cell. This is the next cell along the cycle, unless a
+        neighbour further along the cycle can be reached safely, in which case the furthest one which
+        does not pass the end cell is taken. Returns false if the next cell is blocked, which can only
+        happen if the snake has not been following the cycle.
+     */
+    @Override
+    public boolean run() {
+        checkEndpoints();
+        recorder.start();
+        recorder.expand();
+        int toEnd = distance(start, end);
+        int toTail = tail == NONE || tail == start ? cycle.length : distance(start, tail);
+        int next = cycle[(order[start] + 1) % cycle.length];
+        // The furthest the head may jump along the cycle, staying well behind the tail and not passing the end cell
+        int limit = Math.min(toEnd, toTail - SHORTCUT_MARGIN - growth);
+        int best = 1;
+        int count = grid.neighbours(start, neighbours);
+        for(int i = 0; i < count; i++) {
+            int neighbour = neighbours[i];
+            int skip = distance(start, neighbour);
+            if(skip > best && skip <= limit && !grid.isWall(neighbour)) {
+                best = skip;
+                next = neighbour;
+            }
+        }
+        setPath(grid.isBlocked(next, 1) ? null : new int[] { start, next });
+        recorder.finish(getClass(), path);
+        return path != null;
+    }
+
+    // Calculate the number of moves from one cell to another following the cycle
+    private int distance(int from, int to) {
+        int distance = order[to] - order[from];
+        return distance < 0 ? distance + cycle.length : distance;
+    }
+}
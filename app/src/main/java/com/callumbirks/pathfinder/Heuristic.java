@@ -0,0 +1,34 @@
+package com.callumbirks.pathfinder;
+
+/*
+    A heuristic estimates the number of moves between two cells of a grid, given as indices. For A*
+    to find the shortest path the estimate must never be more than the true number of moves
+    (admissible), and between neighbouring cells it must never fall by more than the cost of the
+    move (consistent). Heuristics which keep tables of the grid are told when its walls change, and
+    are given the chance to refresh themselves before each search.
+ */
+public interface Heuristic {
+    // Estimate the number of moves from one cell to another
+    int estimate(int from, int to);
+
+    // Called when the cell at the given index starts or stops being a wall
+    default void wallChanged(int index, boolean wall) {
+    }
+
+    // Called when every wall is reset
+    default void wallsReset() {
+    }
+
+    // Called before each search, so that the heuristic can bring itself up to date
+    default void prepare() {
+    }
+
+    /*
+        The Manhattan distance, the cheap default. As the grid is 4-connected with a cost of 1 per
+        move it is admissible and consistent, and it needs no tables or floating point arithmetic.
+     */
+    static Heuristic manhattan(Grid grid) {
+        int width = grid.getWidth();
+        return (from, to) -> Math.abs(from % width - to % width) + Math.abs(from / width - to / width);
+    }
+}
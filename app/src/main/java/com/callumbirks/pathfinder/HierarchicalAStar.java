@@ -0,0 +1,441 @@
+package com.callumbirks.pathfinder;
+
+import java.util.Arrays;
+
+/*
+    This class contains HPA* (hierarchical pathfinding A*), for grids too large for a flat search to
+    be fast enough. The grid is split into square clusters, and wherever two neighbouring clusters
+    share a run of free cells along their border, one or two entrances are placed on it, a pair of
+    cells facing each other across the border. The entrances are the nodes of an abstract graph,
+    joined across each border with a cost of 1, and within each cluster by the length of the
+    shortest path between them which stays inside the cluster.
+
+    A search first connects the start and end cells to the entrances of their own clusters, then runs
+    A* over the abstract graph, which has far fewer nodes than the grid, and finally refines the
+    abstract path into cells by searching again only inside the clusters it passes through. Paths
+    are close to the shortest, but not always the shortest, as they can only cross a border at an
+    entrance.
+
+    When a wall is set the clusters whose entrances or inner paths it may change are marked, and are
+    rebuilt at the start of the next search, so a change only costs the clusters around it. As with
+    JumpPointSearch, walls which free up are treated as walls for the whole search, as the abstract
+    graph is built without knowing when each cluster will be reached.
+ */
+public class HierarchicalAStar extends GridPathfinder {
+    // The default width and height of a cluster
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+    // Runs of free cells along a border at least this long get an entrance at each end rather than one in the middle
+    private static final int SPLIT_ENTRANCE_LENGTH = 6;
+
+    // The width and height of a cluster, those on the right and bottom edges of the grid may be smaller
+    private final int clusterSize;
+    // The number of clusters across and down the grid
+    private final int clustersX;
+    private final int clustersY;
+    /*
+        The entrances of each cluster. Each entrance is a cell inside the cluster and its partner, the
+        cell facing it across the border. A cell in the corner of a cluster can be an entrance on two
+        borders, in which case it appears twice with different partners.
+     */
+    private final int[][] entrances;
+    private final int[][] partners;
+    private final int[] entranceCounts;
+    // The distance between each pair of entrances of each cluster, entrance i to entrance j is at i * count + j
+    private final int[][] distances;
+    // Whether each cluster needs to be rebuilt, and the clusters which do
+    private final boolean[] dirty;
+    private final int[] dirtyClusters;
+    private int dirtyCount = 0;
+
+    // The g(n) value, previous node and search id of each node of the abstract graph, see GridAStar
+    private final int[] g;
+    private final int[] previous;
+    private final int[] stamp;
+    private int searchId = 0;
+    // The open set of the abstract search
+    private final IndexedHeap openSet;
+
+    // The distances from the start and end cells to the cells of their own clusters, by local index
+    private final int[] startDistance;
+    private final int[] endDistance;
+    // Scratch space for the floods within a cluster, the distances and previous cells by local index, and the queue
+    private final int[] floodDistance;
+    private final int[] floodPrevious;
+    private final int[] queue;
+    // Scratch space for the neighbours of the cell currently being flooded
+    private final int[] neighbours = new int[4];
+
+    // Create an engine with its own empty grid of the given width and height
+    public HierarchicalAStar(int width, int height) {
+        this(new Grid(width, height));
+    }
+
+    // Create an engine which searches the given grid, with clusters of the default size
+    public HierarchicalAStar(Grid grid) {
+        this(grid, DEFAULT_CLUSTER_SIZE);
+    }
+
+    // Create an engine which searches the given grid, with clusters of the given width and height
+    public HierarchicalAStar(Grid grid, int clusterSize) {
+        super(grid);
+        if(clusterSize < 2)
+            throw new IllegalArgumentException("Clusters must be at least 2x2.");
+        this.clusterSize = clusterSize;
+        clustersX = (grid.getWidth() + clusterSize - 1) / clusterSize;
+        clustersY = (grid.getHeight() + clusterSize - 1) / clusterSize;
+        int clusters = clustersX * clustersY;
+        entrances = new int[clusters][];
+        partners = new int[clusters][];
+        entranceCounts = new int[clusters];
+        distances = new int[clusters][];
+        dirty = new boolean[clusters];
+        dirtyClusters = new int[clusters];
+        g = new int[grid.getSize()];
+        previous = new int[grid.getSize()];
+        stamp = new int[grid.getSize()];
+        openSet = new IndexedHeap(grid.getSize(), recorder);
+        int area = clusterSize * clusterSize;
+        startDistance = new int[area];
+        endDistance = new int[area];
+        floodDistance = new int[area];
+        floodPrevious = new int[area];
+        queue = new int[area];
+        markAllDirty();
+    }
+
+    @Override
+    public void setWall(int x, int y, boolean wall) {
+        super.setWall(x, y, wall);
+        markAround(x, y);
+    }
+
+    /*
+        The start cell is treated as free when placing entrances, as a search may start in a wall (as
+        it may in GridAStar), so when the start cell moves out of or into a wall the clusters around
+        it are rebuilt.
+     */
+    @Override
+    public void setStart(int x, int y) {
+        if(start != NONE && grid.isWall(start))
+            markAround(grid.getX(start), grid.getY(start));
+        super.setStart(x, y);
+        if(grid.isWall(start))
+            markAround(x, y);
+    }
+
+    @Override
+    public void resetWalls() {
+        super.resetWalls();
+        markAllDirty();
+    }
+
+    /*
+        Mark the clusters whose abstract graph may be changed by the cell at the given co-ordinates,
+        its own cluster, and if it is on the border of its cluster, the cluster across that border,
+        as their shared entrances depend on the cells either side of it.
+     */
+    private void markAround(int x, int y) {
+        int cx = x / clusterSize;
+        int cy = y / clusterSize;
+        markDirty(cx, cy);
+        if(x % clusterSize == 0 && cx > 0)
+            markDirty(cx - 1, cy);
+        if(x % clusterSize == clusterSize - 1 && cx < clustersX - 1)
+            markDirty(cx + 1, cy);
+        if(y % clusterSize == 0 && cy > 0)
+            markDirty(cx, cy - 1);
+        if(y % clusterSize == clusterSize - 1 && cy < clustersY - 1)
+            markDirty(cx, cy + 1);
+    }
+
+    // Mark the cluster at the given cluster co-ordinates to be rebuilt
+    private void markDirty(int cx, int cy) {
+        int cluster = cy * clustersX + cx;
+        if(!dirty[cluster]) {
+            dirty[cluster] = true;
+            dirtyClusters[dirtyCount++] = cluster;
+        }
+    }
+
+    // Mark every cluster to be rebuilt
+    private void markAllDirty() {
+        for(int cy = 0; cy < clustersY; cy++) {
+            for(int cx = 0; cx < clustersX; cx++)
+                markDirty(cx, cy);
+        }
+    }
+
+    /*
+        Run the search between the start and end cells, as with GridAStar.run. The clusters changed
+        since the last run are rebuilt first, then the abstract graph is searched, and the path found
+        is refined into cells. Every cell visited by a flood within a cluster is counted as expanded,
+        as well as every node expanded by the abstract search.
+     */
+    @Override
+    public boolean run() {
+        checkEndpoints();
+        recorder.start();
+        heuristic.prepare();
+        for(int i = 0; i < dirtyCount; i++) {
+            rebuild(dirtyClusters[i]);
+            dirty[dirtyClusters[i]] = false;
+        }
+        dirtyCount = 0;
+
+        path = null;
+        if(search())
+            setPath(refine());
+        recorder.finish(getClass(), path);
+        return path != null;
+    }
+
+    /*
+        Rebuild the abstract graph of the given cluster; find its entrances along each border it
+        shares with another cluster, then flood from each entrance to find its distance to the others.
+     */
+    private void rebuild(int cluster) {
+        int cx = cluster % clustersX;
+        int cy = cluster / clustersX;
+        int x0 = cx * clusterSize;
+        int y0 = cy * clusterSize;
+        int x1 = Math.min(x0 + clusterSize, grid.getWidth()) - 1;
+        int y1 = Math.min(y0 + clusterSize, grid.getHeight()) - 1;
+        int width = grid.getWidth();
+        entranceCounts[cluster] = 0;
+        if(cy > 0)
+            scanBorder(cluster, grid.index(x0, y0), -width, 1, x1 - x0 + 1);
+        if(cx < clustersX - 1)
+            scanBorder(cluster, grid.index(x1, y0), 1, width, y1 - y0 + 1);
+        if(cy < clustersY - 1)
+            scanBorder(cluster, grid.index(x0, y1), width, 1, x1 - x0 + 1);
+        if(cx > 0)
+            scanBorder(cluster, grid.index(x0, y0), -1, width, y1 - y0 + 1);
+
+        int count = entranceCounts[cluster];
+        if(distances[cluster] == null || distances[cluster].length < count * count)
+            distances[cluster] = new int[Math.max(count * count, 16)];
+        int[] entrance = entrances[cluster];
+        for(int i = 0; i < count; i++) {
+            flood(entrance[i], floodDistance, NONE);
+            for(int j = 0; j < count; j++)
+                distances[cluster][i * count + j] = floodDistance[local(entrance[j])];
+        }
+    }
+
+    /*
+        Find the entrances along one border of a cluster. The border is 'length' cells long, starting
+        at the cell 'first' inside the cluster and moving 'step' along it, and 'across' is the step
+        from a cell inside the cluster to its partner in the next cluster. The entrances are placed by
+        their position along the border alone, so the cluster on the other side finds the same ones.
+     */
+    private void scanBorder(int cluster, int first, int across, int step, int length) {
+        int run = 0;
+        for(int i = 0; i <= length; i++) {
+            int cell = first + i * step;
+            if(i < length && isOpen(cell) && isOpen(cell + across)) {
+                run++;
+                continue;
+            }
+            if(run >= SPLIT_ENTRANCE_LENGTH) {
+                addEntrance(cluster, cell - run * step, across);
+                addEntrance(cluster, cell - step, across);
+            } else if(run > 0) {
+                addEntrance(cluster, cell - (run / 2 + 1) * step, across);
+            }
+            run = 0;
+        }
+    }
+
+    // Add an entrance to the given cluster, at the given cell and the cell 'across' from it
+    private void addEntrance(int cluster, int cell, int across) {
+        int count = entranceCounts[cluster];
+        if(entrances[cluster] == null) {
+            entrances[cluster] = new int[8];
+            partners[cluster] = new int[8];
+        } else if(count == entrances[cluster].length) {
+            entrances[cluster] = Arrays.copyOf(entrances[cluster], count * 2);
+            partners[cluster] = Arrays.copyOf(partners[cluster], count * 2);
+        }
+        entrances[cluster][count] = cell;
+        partners[cluster][count] = cell + across;
+        entranceCounts[cluster] = count + 1;
+    }
+
+    /*
+        Search the abstract graph from the start cell to the end cell, with the start and end cells
+        joined to the entrances of their clusters (and to each other when they share a cluster) by
+        flooding their clusters. Returns whether the end cell was reached, in which case the abstract
+        path can be read back through 'previous'.
+     */
+    private boolean search() {
+        // The floods would otherwise step out of a walled end cell, which is unreachable as in GridAStar
+        if(grid.isWall(end) && end != start)
+            return false;
+        if(++searchId == 0) {
+            Arrays.fill(stamp, 0);
+            searchId = 1;
+        }
+        flood(start, startDistance, NONE);
+        flood(end, endDistance, NONE);
+        visit(start);
+        g[start] = 0;
+        openSet.clear();
+        openSet.update(start, key(0, heuristic.estimate(start, end)));
+        while(!openSet.isEmpty()) {
+            int current = openSet.poll();
+            if(current == end)
+                return true;
+            recorder.expand();
+            expand(current);
+        }
+        return false;
+    }
+
+    // Expand a node of the abstract graph, relaxing the edges to its neighbours
+    private void expand(int current) {
+        int cluster = clusterOf(current);
+        int count = entranceCounts[cluster];
+        int[] entrance = entrances[cluster];
+        if(current == start) {
+            for(int j = 0; j < count; j++)
+                relax(current, entrance[j], startDistance[local(entrance[j])]);
+        }
+        for(int i = 0; i < count; i++) {
+            if(entrance[i] != current)
+                continue;
+            relax(current, partners[cluster][i], 1);
+            for(int j = 0; j < count; j++) {
+                if(entrance[j] != current)
+                    relax(current, entrance[j], distances[cluster][i * count + j]);
+            }
+        }
+        // The start cell may be a wall, which the flood from the end cell would not enter
+        if(cluster == clusterOf(end))
+            relax(current, end, current == start ? startDistance[local(end)] : endDistance[local(current)]);
+    }
+
+    // Relax the edge between two nodes of the abstract graph with the given cost, unless they are not connected
+    private void relax(int from, int to, int cost) {
+        if(cost == INFINITY)
+            return;
+        visit(to);
+        int tempG = g[from] + cost;
+        if(tempG < g[to]) {
+            if(SearchStats.ENABLED && g[to] != INFINITY && !openSet.contains(to))
+                recorder.reopen();
+            previous[to] = from;
+            g[to] = tempG;
+            openSet.update(to, key(tempG, tempG + heuristic.estimate(to, end)));
+        }
+    }
+
+    /*
+        Calculate the key of a node in the open set from its g(n) and f(n) values. Nodes are ordered by
+        f(n), and those with equal f(n) by the highest g(n) first, so that of the many equally short
+        abstract paths across open ground, one is followed to the end rather than all of them at once.
+     */
+    private static long key(int g, int f) {
+        return ((long) f << 32) | (INFINITY - g);
+    }
+
+    // Reset the values of the given node if it has not yet been reached by the current search
+    private void visit(int index) {
+        if(stamp[index] != searchId) {
+            g[index] = INFINITY;
+            previous[index] = NONE;
+            stamp[index] = searchId;
+        }
+    }
+
+    /*
+        Refine the abstract path to the end cell into a path of cells. Consecutive nodes in different
+        clusters are partners, which are next to each other, and those in the same cluster are joined
+        by flooding the cluster from the first of them and following the previous cells back from the
+        second, so only the clusters along the path are searched again.
+     */
+    private int[] refine() {
+        // Read the abstract path back from the end cell
+        int nodes = 1;
+        for(int node = end; previous[node] != NONE; node = previous[node])
+            nodes++;
+        int[] abstractPath = new int[nodes];
+        for(int i = nodes - 1, node = end; i >= 0; i--, node = previous[node])
+            abstractPath[i] = node;
+
+        // The abstract g(n) of the end cell is the number of moves, so the path has one more cell than that
+        int[] cells = new int[g[end] + 1];
+        int length = 0;
+        cells[length++] = start;
+        int[] section = new int[clusterSize * clusterSize];
+        for(int i = 1; i < nodes; i++) {
+            int from = abstractPath[i - 1];
+            int to = abstractPath[i];
+            if(clusterOf(from) != clusterOf(to)) {
+                cells[length++] = to;
+                continue;
+            }
+            flood(from, floodDistance, to);
+            int sectionLength = floodDistance[local(to)];
+            for(int j = sectionLength - 1, cell = to; j >= 0; j--, cell = floodPrevious[local(cell)])
+                section[j] = cell;
+            System.arraycopy(section, 0, cells, length, sectionLength);
+            length += sectionLength;
+        }
+        return cells;
+    }
+
+    /*
+        Flood breadth-first from the given cell without leaving its cluster, writing the distance of
+        every cell of the cluster from it into 'distance' (INFINITY for those it cannot reach) and the
+        previous cell of each into 'floodPrevious', both by local index. If a stop cell is given, the
+        flood ends as soon as it is reached, and only the cells up to it are written.
+     */
+    private void flood(int from, int[] distance, int stop) {
+        int cluster = clusterOf(from);
+        int x0 = (cluster % clustersX) * clusterSize;
+        int y0 = (cluster / clustersX) * clusterSize;
+        int x1 = Math.min(x0 + clusterSize, grid.getWidth());
+        int y1 = Math.min(y0 + clusterSize, grid.getHeight());
+        Arrays.fill(distance, INFINITY);
+        distance[local(from)] = 0;
+        floodPrevious[local(from)] = NONE;
+        queue[0] = from;
+        int size = 1;
+        for(int head = 0; head < size; head++) {
+            int current = queue[head];
+            if(current == stop)
+                return;
+            recorder.expand();
+            int depth = distance[local(current)] + 1;
+            int count = grid.neighbours(current, neighbours);
+            for(int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                int x = grid.getX(neighbour);
+                int y = grid.getY(neighbour);
+                if(x < x0 || x >= x1 || y < y0 || y >= y1 || grid.isWall(neighbour))
+                    continue;
+                int index = local(neighbour);
+                if(distance[index] != INFINITY)
+                    continue;
+                distance[index] = depth;
+                floodPrevious[index] = current;
+                queue[size++] = neighbour;
+            }
+        }
+    }
+
+    // Check whether the cell at the given index can be an entrance, it must not be a wall unless it is the start cell
+    private boolean isOpen(int index) {
+        return index == start || !grid.isWall(index);
+    }
+
+    // Calculate the cluster which contains the cell at the given index
+    private int clusterOf(int index) {
+        return (grid.getY(index) / clusterSize) * clustersX + grid.getX(index) / clusterSize;
+    }
+
+    // Calculate the index of the cell at the given index within its cluster
+    private int local(int index) {
+        return (grid.getY(index) % clusterSize) * clusterSize + grid.getX(index) % clusterSize;
+    }
+}
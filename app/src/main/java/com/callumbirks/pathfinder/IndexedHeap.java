@@ -0,0 +1,165 @@
+package com.callumbirks.pathfinder;
+
+import java.util.Arrays;
+
+/*
+    An indexed binary min-heap of cell indices, ordered by a long key (the f(n) value in the A*
+    engines, or a pair of ints packed into one long where a search needs lexicographic keys).
+    Alongside the heap itself, the position of every cell within the heap is tracked, so checking
+    whether a cell is in the heap is O(1), and lowering the key of a cell which is already in the
+    heap (decrease-key) is O(log n) rather than the linear scan that PriorityQueue.contains and
+    PriorityQueue.remove require.
+ */
+public class IndexedHeap {
+    // Value held in 'position' for cells which are not in the heap
+    private static final int ABSENT = -1;
+
+    // The cell indices in heap order, only the first 'size' elements are in use
+    private final int[] heap;
+    // The key of each cell, indexed by cell
+    private final long[] keys;
+    // The position of each cell within 'heap', indexed by cell
+    private final int[] position;
+    // The number of cells currently in the heap
+    private int size = 0;
+    // Counts the pushes and pops of the engine's search in progress, or null if they are not counted
+    private final SearchRecorder recorder;
+
+    // Create a heap able to hold cells with indices from 0 up to (but not including) 'capacity'
+    public IndexedHeap(int capacity) {
+        this(capacity, null);
+    }
+
+    // Create a heap which also counts its pushes and pops with the given recorder
+    IndexedHeap(int capacity, SearchRecorder recorder) {
+        this.recorder = recorder;
+        heap = new int[capacity];
+        keys = new long[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, ABSENT);
+    }
+
+    // Check whether the heap is empty
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Getter for the number of cells in the heap
+    public int size() {
+        return size;
+    }
+
+    // Check whether the given cell is in the heap
+    public boolean contains(int cell) {
+        return position[cell] != ABSENT;
+    }
+
+    // Getter for the key of the given cell, only meaningful while the cell is in the heap
+    public long getKey(int cell) {
+        return keys[cell];
+    }
+
+    /*
+        Add the given cell to the heap with the given key, or if it is already in the heap, change
+        its key to the given key. The cell is moved up or down the heap as required.
+     */
+    public void update(int cell, long key) {
+        if(position[cell] == ABSENT) {
+            if(SearchStats.ENABLED && recorder != null)
+                recorder.push();
+            keys[cell] = key;
+            heap[size] = cell;
+            position[cell] = size;
+            siftUp(size++);
+        } else {
+            long oldKey = keys[cell];
+            keys[cell] = key;
+            if(key < oldKey)
+                siftUp(position[cell]);
+            else if(key > oldKey)
+                siftDown(position[cell]);
+        }
+    }
+
+    // Getter for the cell with the lowest key, without removing it
+    public int peek() {
+        if(size == 0)
+            throw new IllegalStateException("Heap is empty.");
+        return heap[0];
+    }
+
+    // Getter for the lowest key in the heap
+    public long peekKey() {
+        return keys[peek()];
+    }
+
+    // Remove and return the cell with the lowest key
+    public int poll() {
+        int top = peek();
+        removeAt(0);
+        return top;
+    }
+
+    // Remove the given cell from the heap, if it is in the heap
+    public void remove(int cell) {
+        if(position[cell] != ABSENT)
+            removeAt(position[cell]);
+    }
+
+    // Remove every cell from the heap, this is proportional to the number of cells in the heap
+    public void clear() {
+        for(int i = 0; i < size; i++)
+            position[heap[i]] = ABSENT;
+        size = 0;
+    }
+
+    // Remove the cell at the given position in the heap, moving the last cell into its place
+    private void removeAt(int index) {
+        if(SearchStats.ENABLED && recorder != null)
+            recorder.pop();
+        position[heap[index]] = ABSENT;
+        size--;
+        if(index == size)
+            return;
+        heap[index] = heap[size];
+        position[heap[index]] = index;
+        siftDown(index);
+        siftUp(index);
+    }
+
+    // Move the cell at the given position up the heap until its parent has a key no greater than its own
+    private void siftUp(int index) {
+        int cell = heap[index];
+        long key = keys[cell];
+        while(index > 0) {
+            int parent = (index - 1) >>> 1;
+            if(keys[heap[parent]] <= key)
+                break;
+            heap[index] = heap[parent];
+            position[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = cell;
+        position[cell] = index;
+    }
+
+    // Move the cell at the given position down the heap until its children have keys no lower than its own
+    private void siftDown(int index) {
+        int cell = heap[index];
+        long key = keys[cell];
+        int half = size >>> 1;
+        while(index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if(right < size && keys[heap[right]] < keys[heap[child]])
+                child = right;
+            if(key <= keys[heap[child]])
+                break;
+            heap[index] = heap[child];
+            position[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = cell;
+        position[cell] = index;
+    }
+}
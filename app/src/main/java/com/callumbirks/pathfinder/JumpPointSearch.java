@@ -0,0 +1,101 @@
+package com.callumbirks.pathfinder;
+
+/*
+    This class contains Jump Point Search for 4-connected grids. It is A* (and reuses GridAStar for
+    the open set, g(n) values and path reconstruction), but rather than adding every neighbour of a
+    cell to the open set, it prunes the symmetric paths of a uniform cost grid by travelling in a
+    straight line until it reaches a jump point; the end cell, a cell with a forced neighbour (one
+    which can only be reached optimally by turning at that cell), or, when travelling vertically, a
+    cell from which a horizontal jump finds a jump point. Only jump points are added to the open set,
+    so on open grids far fewer cells are expanded. The path is filled back in cell by cell when it
+    is reconstructed, so it is consumed exactly as the path from AStar.
+    The pruning relies on the walls staying where they are, so unlike GridAStar, walls which free up
+    are treated as walls for the whole search. For the same reason it can not honour the reservations
+    of other agents (see GridPathfinder.setReservations), so while reservations are set every cell is
+    expanded as GridAStar expands it, and the search is plain A* with no jumps.
+ */
+public class JumpPointSearch extends GridAStar {
+    // Create an engine with its own empty grid of the given width and height
+    public JumpPointSearch(int width, int height) {
+        super(width, height);
+    }
+
+    // Create an engine which searches the given grid
+    public JumpPointSearch(Grid grid) {
+        super(grid);
+    }
+
+    /*
+        Expand the given cell. The start cell has no previous cell, so it jumps in all 4 directions.
+        Any other cell was reached travelling in a straight line, so it only continues in that direction
+        or turns to either side, as going back the way it came can never be part of an optimal path.
+     */
+    @Override
+    protected void expand(int current) {
+        if(reservations != null) {
+            super.expand(current);
+            return;
+        }
+        int x = grid.getX(current);
+        int y = grid.getY(current);
+        int parent = previous[current];
+        if(parent == NONE) {
+            jumpFrom(current, x, y, 0, -1);
+            jumpFrom(current, x, y, 1, 0);
+            jumpFrom(current, x, y, 0, 1);
+            jumpFrom(current, x, y, -1, 0);
+            return;
+        }
+        int dx = Integer.signum(x - grid.getX(parent));
+        int dy = Integer.signum(y - grid.getY(parent));
+        if(dx != 0) {
+            jumpFrom(current, x, y, 0, -1);
+            jumpFrom(current, x, y, 0, 1);
+            jumpFrom(current, x, y, dx, 0);
+        } else {
+            jumpFrom(current, x, y, -1, 0);
+            jumpFrom(current, x, y, 1, 0);
+            jumpFrom(current, x, y, 0, dy);
+        }
+    }
+
+    // Jump from the given cell in the given direction, and relax the edge to the jump point if one is found
+    private void jumpFrom(int current, int x, int y, int dx, int dy) {
+        int jumpPoint = jump(x, y, dx, dy);
+        if(jumpPoint != NONE)
+            relax(current, jumpPoint, manhattan(current, jumpPoint));
+    }
+
+    /*
+        Travel from the cell at the given co-ordinates in the given direction until a jump point is
+        found, returning its index, or until a wall or the edge of the grid is hit, returning NONE.
+     */
+    private int jump(int x, int y, int dx, int dy) {
+        while(true) {
+            x += dx;
+            y += dy;
+            if(!isFree(x, y))
+                return NONE;
+            int index = grid.index(x, y);
+            if(index == end)
+                return index;
+            if(dx != 0) {
+                // Travelling horizontally, a cell above or below is forced if the cell behind it is blocked
+                if((isFree(x, y - 1) && !isFree(x - dx, y - 1)) || (isFree(x, y + 1) && !isFree(x - dx, y + 1)))
+                    return index;
+            } else {
+                // Travelling vertically, a cell to either side is forced if the cell behind it is blocked
+                if((isFree(x - 1, y) && !isFree(x - 1, y - dy)) || (isFree(x + 1, y) && !isFree(x + 1, y - dy)))
+                    return index;
+                // A horizontal jump point makes this cell a jump point, as the path must turn here to reach it
+                if(jump(x, y, 1, 0) != NONE || jump(x, y, -1, 0) != NONE)
+                    return index;
+            }
+        }
+    }
+
+    // Check whether the cell at the given co-ordinates is within the grid and is not a wall
+    private boolean isFree(int x, int y) {
+        return grid.isInGrid(x, y) && !grid.isWall(x, y);
+    }
+}
@@ -0,0 +1,198 @@
+package com.callumbirks.pathfinder;
+
+import java.util.Arrays;
+
+/*
+    The ALT heuristic (A*, Landmarks and the Triangle inequality). A few landmark cells are chosen,
+    far apart around the edges of the grid, and the distance from each landmark to every cell is
+    found by a breadth-first flood. By the triangle inequality, the distance between two cells is
+    at least the difference of their distances to any landmark, and the largest such difference (or
+    the Manhattan distance, if that is larger) is the estimate. Around walls this is far tighter
+    than the Manhattan distance, so the search expands far fewer cells.
+
+    The tables are kept admissible as the walls change. A new wall can only make distances longer,
+    so the tables are left as they are. When a wall is removed, distances can get shorter, so the
+    decrease is spread out from the freed cell to the cells whose distances it shortens, which is
+    only as much work as the number of cells affected. As walls are added the tables gradually
+    become looser, so once 'refreshInterval' walls have been added since the tables were built,
+    they are rebuilt from scratch (with new landmarks) before the next search.
+
+    Walls which free up after a while (see Grid.setWallUntil) may be passed by a search once they
+    have freed up, so the tables ignore them: they are left out of the floods, and are not counted
+    towards a rebuild, otherwise the estimate could be more than the true number of moves. So ALT
+    only helps on boards with walls which never free up, and in Game, where every wall is part of
+    the snake's body and frees up, the tables describe an empty board and are no tighter than the
+    Manhattan distance. A wall's free time is only set after the heuristic is told of it (see
+    GridPathfinder.setWallUntil), so the added walls are only counted before the next search.
+ */
+public class LandmarkHeuristic implements Heuristic {
+    // Value used for distances to cells the landmark can not reach
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final Grid grid;
+    // The distance from each landmark to every cell, one table per landmark
+    private final int[][] tables;
+    // The walls the tables were built around, less any which have been removed since
+    private final Grid blocked;
+    private final Heuristic manhattan;
+    // The number of added walls after which the tables are rebuilt
+    private final int refreshInterval;
+    // The number of walls which never free up added since the tables were built
+    private int added = 0;
+    // The cells set as walls since the last search, counted towards 'added' if they never free up
+    private int[] pending = new int[16];
+    private int pendingCount = 0;
+    // Whether the tables have to be rebuilt before they are next used
+    private boolean stale = true;
+    // The queue of the floods, and scratch space for the neighbours of a cell
+    private final int[] queue;
+    private final int[] neighbours = new int[4];
+
+    // Create a heuristic with the given number of landmarks, rebuilt after a quarter of the grid has become walls
+    public LandmarkHeuristic(Grid grid, int landmarks) {
+        this(grid, landmarks, Math.max(grid.getSize() / 4, 1));
+    }
+
+    public LandmarkHeuristic(Grid grid, int landmarks, int refreshInterval) {
+        if(landmarks <= 0 || refreshInterval <= 0)
+            throw new IllegalArgumentException("Landmarks and refresh interval must be positive.");
+        this.grid = grid;
+        this.tables = new int[landmarks][grid.getSize()];
+        this.blocked = new Grid(grid.getWidth(), grid.getHeight());
+        this.manhattan = Heuristic.manhattan(grid);
+        this.refreshInterval = refreshInterval;
+        this.queue = new int[grid.getSize()];
+    }
+
+    @Override
+    public int estimate(int from, int to) {
+        int best = manhattan.estimate(from, to);
+        for(int[] table : tables) {
+            int a = table[from];
+            int b = table[to];
+            // A landmark which can not reach both cells gives no bound
+            if(a != UNREACHED && b != UNREACHED)
+                best = Math.max(best, Math.abs(a - b));
+        }
+        return best;
+    }
+
+    @Override
+    public void wallChanged(int index, boolean wall) {
+        if(wall) {
+            // Once the tables are stale they are rebuilt from the grid, so there is nothing to count
+            if(stale)
+                return;
+            if(pendingCount == pending.length)
+                pending = Arrays.copyOf(pending, pendingCount * 2);
+            pending[pendingCount++] = index;
+        } else if(!stale && blocked.isWall(index)) {
+            blocked.setWall(index, false);
+            for(int[] table : tables)
+                spreadDecrease(table, index);
+        }
+    }
+
+    @Override
+    public void wallsReset() {
+        stale = true;
+        pendingCount = 0;
+    }
+
+    @Override
+    public void prepare() {
+        for(int i = 0; i < pendingCount; i++) {
+            if(grid.isPermanentWall(pending[i]) && ++added >= refreshInterval)
+                stale = true;
+        }
+        pendingCount = 0;
+        if(stale)
+            refresh();
+    }
+
+    /*
+        Rebuild the tables around the walls which never free up. Each landmark is the cell farthest
+        from the landmarks chosen before it (the first being the farthest from the top left corner),
+        which spreads them out around the edges of the grid where they give the tightest bounds.
+     */
+    private void refresh() {
+        blocked.resetWalls();
+        for(int wall = grid.nextWall(0); wall != -1; wall = grid.nextWall(wall + 1)) {
+            if(grid.isPermanentWall(wall))
+                blocked.setWall(wall, true);
+        }
+        // The distance from each cell to its nearest landmark so far, used to choose the next landmark
+        int[] nearest = new int[grid.getSize()];
+        Arrays.fill(nearest, UNREACHED);
+        flood(tables[0], 0);
+        int landmark = farthest(tables[0]);
+        for(int i = 0; i < tables.length; i++) {
+            flood(tables[i], landmark);
+            for(int cell = 0; cell < nearest.length; cell++)
+                nearest[cell] = Math.min(nearest[cell], tables[i][cell]);
+            landmark = farthest(nearest);
+        }
+        added = 0;
+        stale = false;
+    }
+
+    // Flood from the given cell, writing the distance to every cell into the table
+    private void flood(int[] table, int source) {
+        Arrays.fill(table, UNREACHED);
+        table[source] = 0;
+        queue[0] = source;
+        int reached = 1;
+        for(int head = 0; head < reached; head++) {
+            int current = queue[head];
+            int count = grid.neighbours(current, neighbours);
+            for(int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if(table[neighbour] != UNREACHED || blocked.isWall(neighbour))
+                    continue;
+                table[neighbour] = table[current] + 1;
+                queue[reached++] = neighbour;
+            }
+        }
+    }
+
+    // Find the reachable cell with the largest distance in the given table
+    private int farthest(int[] distances) {
+        int best = 0;
+        int bestDistance = -1;
+        for(int cell = 0; cell < distances.length; cell++) {
+            int distance = distances[cell];
+            if(distance != UNREACHED && distance > bestDistance) {
+                best = cell;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    // Spread the shorter distances which the freed cell at the given index allows through the table
+    private void spreadDecrease(int[] table, int freed) {
+        int count = grid.neighbours(freed, neighbours);
+        int best = table[freed];
+        for(int i = 0; i < count; i++) {
+            int distance = table[neighbours[i]];
+            if(distance != UNREACHED && distance + 1 < best)
+                best = distance + 1;
+        }
+        if(best == table[freed])
+            return;
+        table[freed] = best;
+        queue[0] = freed;
+        int reached = 1;
+        for(int head = 0; head < reached; head++) {
+            int current = queue[head];
+            count = grid.neighbours(current, neighbours);
+            for(int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if(blocked.isWall(neighbour) || table[neighbour] <= table[current] + 1)
+                    continue;
+                table[neighbour] = table[current] + 1;
+                queue[reached++] = neighbour;
+            }
+        }
+    }
+}
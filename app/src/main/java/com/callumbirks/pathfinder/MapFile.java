@@ -0,0 +1,84 @@
+package com.callumbirks.pathfinder;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+    Reads and writes the walls of a Grid in a compact binary format, so that large prebuilt boards
+    can be loaded without setting each wall in turn. The file is the wall bitset itself after a
+    short header, all little endian:
+
+        int   MAGIC ('SNKM')
+        int   VERSION
+        int   width
+        int   height
+        long  the words of the wall bitset, in index order, see Grid.getWord
+
+    So the file is one bit per cell, and reading it maps the file into memory with FileChannel.map
+    and copies the words straight into the grid's pages, without decoding any cells. Free times are
+    not stored, every wall read from a file never frees up.
+ */
+public final class MapFile {
+    // The first int of every map file, 'SNKM' in ASCII
+    public static final int MAGIC = 0x4D4B4E53;
+    // The version of the format written
+    public static final int VERSION = 1;
+    // The size of the header in bytes, which keeps the words aligned to 8 bytes
+    private static final int HEADER_BYTES = 16;
+
+    private MapFile() {
+    }
+
+    // Read a grid from the map file at the given path
+    public static Grid read(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < HEADER_BYTES)
+                throw new IOException(file + " is too short to be a map file.");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if(buffer.getInt() != MAGIC)
+                throw new IOException(file + " is not a map file.");
+            int version = buffer.getInt();
+            if(version != VERSION)
+                throw new IOException(file + " is version " + version + " of the map format, only " + VERSION + " can be read.");
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            Grid grid;
+            try {
+                grid = new Grid(width, height);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + " has an invalid size of " + width + "x" + height + ".", e);
+            }
+            if(size != HEADER_BYTES + 8L * grid.getWordCount())
+                throw new IOException(file + " is " + size + " bytes, which does not match its size of " + width + "x" + height + ".");
+            // A slice is big endian whatever its buffer is, so its order must be set again
+            LongBuffer words = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            grid.setWords(words);
+            return grid;
+        }
+    }
+
+    // Write the walls of the given grid to a map file at the given path, replacing any file there
+    public static void write(Grid grid, Path file) throws IOException {
+        long size = HEADER_BYTES + 8L * grid.getWordCount();
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(grid.getWidth());
+            buffer.putInt(grid.getHeight());
+            LongBuffer words = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            for(int word = 0; word < grid.getWordCount(); word++)
+                words.put(grid.getWord(word));
+            buffer.force();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.callumbirks.pathfinder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Reads the map (.map) and scenario (.scen) files of the Moving AI pathfinding benchmarks, so that
+    the engines can be run on the recognised benchmark sets. A map file is a short header followed by
+    one line of characters per row:
+
+        type octile
+        height H
+        width W
+        map
+        ..@@T.
+
+    where '.', 'G' and 'S' are passable and every other character ('@', 'O', 'T', 'W') is a wall.
+    A map is read a line at a time straight into a Grid, so nothing but the grid is held in memory.
+    Scenario files hold one query per line after a version line, see Scenario.
+ */
+public final class MovingAiFormat {
+    private MovingAiFormat() {
+    }
+
+    // Read a grid from the .map file at the given path
+    public static Grid readMap(Path file) throws IOException {
+        try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            return readMap(reader);
+        }
+    }
+
+    // Read a grid from the given reader of a .map file
+    public static Grid readMap(BufferedReader reader) throws IOException {
+        int width = -1;
+        int height = -1;
+        String line;
+        while(true) {
+            line = reader.readLine();
+            if(line == null)
+                throw new IOException("Map ended before its 'map' line.");
+            line = line.trim();
+            if(line.equals("map"))
+                break;
+            String[] parts = line.split("\\s+");
+            if(parts.length == 2 && parts[0].equals("width"))
+                width = parseInt(parts[1], line);
+            else if(parts.length == 2 && parts[0].equals("height"))
+                height = parseInt(parts[1], line);
+        }
+        if(width <= 0 || height <= 0)
+            throw new IOException("Map has no width or height.");
+        Grid grid = new Grid(width, height);
+        for(int y = 0; y < height; y++) {
+            line = reader.readLine();
+            if(line == null || line.length() < width)
+                throw new IOException("Row " + y + " of the map is missing or shorter than its width of " + width + ".");
+            for(int x = 0; x < width; x++) {
+                if(!isPassable(line.charAt(x)))
+                    grid.setWall(grid.index(x, y), true);
+            }
+        }
+        return grid;
+    }
+
+    // Check whether a cell with the given character of a .map file can be moved through
+    private static boolean isPassable(char c) {
+        return c == '.' || c == 'G' || c == 'S';
+    }
+
+    // Write the walls of the given grid as a .map file at the given path, walls as '@' and free cells as '.'
+    public static void writeMap(Grid grid, Path file) throws IOException {
+        try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            writer.write("type octile\nheight " + grid.getHeight() + "\nwidth " + grid.getWidth() + "\nmap\n");
+            char[] row = new char[grid.getWidth()];
+            for(int y = 0; y < grid.getHeight(); y++) {
+                for(int x = 0; x < row.length; x++)
+                    row[x] = grid.isWall(x, y) ? '@' : '.';
+                writer.write(row);
+                writer.write('\n');
+            }
+        }
+    }
+
+    // Read every scenario of the .scen file at the given path, in the order of the file
+    public static List<Scenario> readScenarios(Path file) throws IOException {
+        try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            return readScenarios(reader);
+        }
+    }
+
+    /*
+        Read every scenario from the given reader of a .scen file. The fields of each line are split
+        on tabs, as map names may hold spaces, or on any whitespace for files without tabs.
+     */
+    public static List<Scenario> readScenarios(BufferedReader reader) throws IOException {
+        List<Scenario> scenarios = new ArrayList<>();
+        String line = reader.readLine();
+        if(line == null || !line.trim().startsWith("version"))
+            throw new IOException("Scenario file does not start with a version line.");
+        while((line = reader.readLine()) != null) {
+            if(line.isBlank())
+                continue;
+            String[] fields = line.indexOf('\t') >= 0 ? line.trim().split("\t") : line.trim().split("\\s+");
+            if(fields.length < 9)
+                throw new IOException("Scenario line has " + fields.length + " fields rather than 9: " + line);
+            try {
+                scenarios.add(new Scenario(Integer.parseInt(fields[0]), fields[1],
+                        Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                        Integer.parseInt(fields[4]), Integer.parseInt(fields[5]),
+                        Integer.parseInt(fields[6]), Integer.parseInt(fields[7]),
+                        Double.parseDouble(fields[8])));
+            } catch (NumberFormatException e) {
+                throw new IOException("Scenario line is malformed: " + line, e);
+            }
+        }
+        return scenarios;
+    }
+
+    // Write the given scenarios as a .scen file at the given path
+    public static void writeScenarios(List<Scenario> scenarios, Path file) throws IOException {
+        try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            writer.write("version 1\n");
+            for(Scenario s : scenarios) {
+                writer.write(s.bucket() + "\t" + s.map() + "\t" + s.mapWidth() + "\t" + s.mapHeight() + "\t"
+                        + s.startX() + "\t" + s.startY() + "\t" + s.goalX() + "\t" + s.goalY() + "\t"
+                        + s.optimalLength() + "\n");
+            }
+        }
+    }
+
+    // Parse an int from a header line, throwing an IOException if it is not a number
+    private static int parseInt(String value, String line) throws IOException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IOException("Map header line is malformed: " + line, e);
+        }
+    }
+}
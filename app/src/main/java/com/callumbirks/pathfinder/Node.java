@@ -39,6 +39,13 @@ public class Node {
     private List<Node> neighbours;
     // A boolean determining if this node is a wall
     private boolean wall;
+    /*
+        The id of the search which last reset this node's f(n), g(n), h(n) and previous values,
+        and the generation of walls in which the wall boolean was last set. These allow AStar to
+        treat a node as reset without visiting it, see AStar.visit and AStar.isWall.
+     */
+    private int searchStamp;
+    private int wallStamp;
 
     /* The constructor for the node, taking in parameters for
        its x and y co-ordinates on the grid. */
@@ -120,6 +127,26 @@ public class Node {
         this.wall = wall;
     }
 
+    // Getter for the id of the search which last reset this node
+    public int getSearchStamp() {
+        return searchStamp;
+    }
+
+    // Setter for the id of the search which last reset this node
+    public void setSearchStamp(int searchStamp) {
+        this.searchStamp = searchStamp;
+    }
+
+    // Getter for the generation of walls in which the wall boolean of this node was last set
+    public int getWallStamp() {
+        return wallStamp;
+    }
+
+    // Setter for the generation of walls in which the wall boolean of this node was last set
+    public void setWallStamp(int wallStamp) {
+        this.wallStamp = wallStamp;
+    }
+
     // Get the value representing the previous node along the path
     public Node getPrevious() {
         return previous;
@@ -0,0 +1,67 @@
+package com.callumbirks.pathfinder;
+
+import java.util.Arrays;
+
+/*
+    An int array over the cells of a grid, split into pages of Grid.PAGE_SIZE cells which are only
+    allocated the first time a value in them is written, so a search which only reaches part of a
+    very large grid only allocates the pages it reaches. Reading a cell of a page which has not been
+    written returns the initial value.
+
+    Each page is stamped with the generation it was last reset in, as GridAStar stamps each cell,
+    so clear() resets every page at once, and a page is only refilled when it is first written in
+    the new generation. Allocated pages are kept from generation to generation and reused.
+ */
+class PagedIntArray {
+    // The value of every cell which has not been written in the current generation
+    private final int initial;
+    // The pages, null until first written
+    private final int[][] pages;
+    // The generation each page was last reset in, a page's values are only valid if this equals 'generation'
+    private final int[] stamp;
+    private int generation = 1;
+
+    // Create an array of the given number of cells, each of which reads as the initial value until written
+    PagedIntArray(int size, int initial) {
+        this.initial = initial;
+        int count = (int) (((long) size + Grid.PAGE_SIZE - 1) >>> Grid.PAGE_SHIFT);
+        pages = new int[count][];
+        stamp = new int[count];
+    }
+
+    // Getter for the value of the given cell
+    int get(int index) {
+        int page = index >>> Grid.PAGE_SHIFT;
+        return stamp[page] == generation ? pages[page][index & (Grid.PAGE_SIZE - 1)] : initial;
+    }
+
+    // Setter for the value of the given cell, allocating or resetting its page if needed
+    void set(int index, int value) {
+        int page = index >>> Grid.PAGE_SHIFT;
+        if(stamp[page] != generation) {
+            if(pages[page] == null)
+                pages[page] = new int[Grid.PAGE_SIZE];
+            Arrays.fill(pages[page], initial);
+            stamp[page] = generation;
+        }
+        pages[page][index & (Grid.PAGE_SIZE - 1)] = value;
+    }
+
+    // Reset every cell to the initial value, in the unlikely event that the generation wraps around the stamps must be cleared
+    void clear() {
+        if(++generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    // Getter for the number of pages which have been allocated
+    int getAllocatedPages() {
+        int count = 0;
+        for(int[] page : pages) {
+            if(page != null)
+                count++;
+        }
+        return count;
+    }
+}
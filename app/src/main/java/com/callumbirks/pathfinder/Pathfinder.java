@@ -0,0 +1,61 @@
+package com.callumbirks.pathfinder;
+
+import java.util.List;
+
+/*
+    The Pathfinder interface is the surface shared by every search engine in this package.
+    It mirrors the public methods of the original AStar class, so that the Game can swap one
+    engine for another without changing how it sets up a search or consumes the resulting path.
+ */
+public interface Pathfinder {
+    // Set the start cell of the search to the given x and y co-ordinates
+    void setStart(int x, int y);
+
+    // Set the end cell of the search to the given x and y co-ordinates
+    void setEnd(int x, int y);
+
+    // Set whether the cell at the given x and y co-ordinates is a wall
+    void setWall(int x, int y, boolean wall);
+
+    // Check whether the cell at the given x and y co-ordinates is a wall
+    boolean isWall(int x, int y);
+
+    /*
+        Set the cell at the given x and y co-ordinates to be a wall which frees up at the given time,
+        see Grid.setWallUntil. Engines which do not take free times into account keep it as a wall.
+     */
+    default void setWallUntil(int x, int y, int freeTime) {
+        setWall(x, y, true);
+    }
+
+    // Set the current time which the free times of walls are relative to, see Grid.setTime
+    default void setTime(int time) {
+    }
+
+    // Reset all walls (to not be walls)
+    void resetWalls();
+
+    /*
+        Run the search between the start and end cells. Returns true if a path was found,
+        in which case it can be obtained using the 'getPath' function.
+     */
+    boolean run();
+
+    // Getter for the path, if the path has not been found then this returns null
+    List<Node> getPath();
+
+    // Getter for the path as a compact CellPath, or null if there is no path
+    CellPath getCompactPath();
+
+    // Check if the path has been set
+    boolean isPathSet();
+
+    // Check whether the path has been set, and then if the cell at the given x and y co-ords is on the path
+    boolean isOnPath(int x, int y);
+
+    // Check whether the cell at the given x and y co-ordinates is within the bounds of the grid
+    boolean isInGrid(int x, int y);
+
+    // Getter for the statistics of the last run, this is null unless SearchStats.ENABLED is set
+    SearchStats getLastStats();
+}
@@ -0,0 +1,93 @@
+package com.callumbirks.pathfinder;
+
+import java.util.Arrays;
+
+/*
+    A space-time reservation table, for many agents planning on one board (cooperative pathfinding).
+    Once an agent has planned, it reserves each cell its path passes through for the ticks it will be
+    there, and the agents which plan after it avoid those cells at those times, as they avoid walls.
+    A snake holds a cell from the tick its head enters it until its tail leaves, so a reservation is
+    a range of ticks rather than a single tick.
+
+    Each cell holds a single range and the agent it belongs to. When a second agent reserves a cell
+    already reserved this round, the ranges are merged and the cell is reserved for every agent over
+    the whole of them, which can only ever block more than it has to, never less.
+
+    Ticks are absolute, and a search asks about a cell reached after 'depth' moves from the current
+    tick, as with Grid.isBlocked. The table is only written between searches, so any number of
+    searches may read it at once.
+ */
+public class ReservationTable {
+    // The agent of cells which are reserved for every agent
+    public static final int SHARED = -1;
+
+    // The first tick each cell is reserved from, and the tick it is reserved until (exclusive)
+    private final int[] from;
+    private final int[] until;
+    // The agent each cell is reserved by, or SHARED
+    private final int[] agent;
+    // The round each cell was reserved in, a cell is only reserved if this equals 'round', see GridAStar
+    private final int[] stamp;
+    private int round = 1;
+    // The current tick, which searches count their depth from
+    private int now = 0;
+
+    // Create a table for a board of the given number of cells
+    public ReservationTable(int size) {
+        from = new int[size];
+        until = new int[size];
+        agent = new int[size];
+        stamp = new int[size];
+    }
+
+    // Getter for the current tick
+    public int getNow() {
+        return now;
+    }
+
+    // Setter for the current tick
+    public void setNow(int now) {
+        this.now = now;
+    }
+
+    // Remove every reservation, ready for the agents to reserve again
+    public void clear() {
+        if(++round == 0) {
+            Arrays.fill(stamp, 0);
+            round = 1;
+        }
+    }
+
+    // Reserve the cell at the given index for the given agent, from one tick until (but not including) another
+    public void reserve(int index, int fromTick, int untilTick, int by) {
+        if(stamp[index] != round) {
+            stamp[index] = round;
+            from[index] = fromTick;
+            until[index] = untilTick;
+            agent[index] = by;
+            return;
+        }
+        from[index] = Math.min(from[index], fromTick);
+        until[index] = Math.max(until[index], untilTick);
+        if(agent[index] != by)
+            agent[index] = SHARED;
+    }
+
+    // Check whether the cell at the given index is reserved by an agent other than the given one at any time
+    public boolean isClaimed(int index, int by) {
+        return stamp[index] == round && agent[index] != by;
+    }
+
+    /*
+        Check whether the cell at the given index is reserved by an agent other than the given one on
+        the tick it would be entered, after 'depth' moves. Entering a cell which another agent will
+        only reserve later is allowed, as that agent will see this one's body as a wall when it next
+        plans, and plan around it.
+     */
+    public boolean isReserved(int index, int depth, int by) {
+        if(stamp[index] != round || agent[index] == by)
+            return false;
+        int arrival = now + depth;
+        return from[index] <= arrival && until[index] > arrival;
+    }
+}
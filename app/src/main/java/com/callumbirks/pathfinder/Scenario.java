@@ -0,0 +1,12 @@
+package com.callumbirks.pathfinder;
+
+/*
+    One query of a Moving AI scenario (.scen) file, see MovingAiFormat. The bucket groups queries of
+    similar length, and the map is the name of the .map file the query is on, with its size. The
+    optimal length is the benchmark's own, which is for 8-connected movement with diagonal moves of
+    cost sqrt(2), so it is a lower bound on the length of a path on this package's 4-connected grids
+    rather than the length expected.
+ */
+public record Scenario(int bucket, String map, int mapWidth, int mapHeight,
+                       int startX, int startY, int goalX, int goalY, double optimalLength) {
+}
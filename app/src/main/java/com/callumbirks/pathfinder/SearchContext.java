@@ -0,0 +1,304 @@
+package com.callumbirks.pathfinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    The scratch space of a single A* query, kept apart from the grid it searches, and the A* loop
+    itself. A SearchContext holds only the g(n) values, previous cells, stamps and open set, and each
+    query is given its grid, start and end and returns its own path, so any number of contexts can
+    search the same frozen Grid at once (see Grid.freeze) without copying it. GridAStar (and so
+    JumpPointSearch) runs its searches on a context of its own, so there is one A* loop for both.
+
+    Contexts are pooled per thread, see forCurrentThread, so a thread which answers many queries
+    allocates its scratch arrays once and reuses them from query to query, as GridAStar does.
+ */
+public final class SearchContext {
+    // Value used for distances to cells which have not been reached yet
+    private static final int INFINITY = Integer.MAX_VALUE;
+    // Value used for the previous cell when there is no cell
+    private static final int NONE = -1;
+
+    // The context of each thread, grown when a larger grid is searched, see forCurrentThread
+    private static final ThreadLocal<SearchContext> POOL = new ThreadLocal<>();
+
+    // The number of cells the scratch arrays have room for
+    private final int capacity;
+    // The g(n) value of each cell
+    final int[] g;
+    // The index of the previous cell along the path for each cell
+    final int[] previous;
+    // The id of the search which last reset each cell, as in GridAStar
+    private final int[] stamp;
+    private int searchId = 0;
+    // The open set, an indexed min-heap of cells ordered by f(n)
+    private final IndexedHeap openSet;
+    // Scratch space for the neighbours of the cell currently being expanded
+    private final int[] neighbours = new int[4];
+    // Counts the work done by each query, see SearchStats
+    private final SearchRecorder recorder;
+    // The end cell and heuristic of the search in progress, used by relax
+    private int end = NONE;
+    private Heuristic heuristic = null;
+    // The queue of a multi-target search and the stamps of its targets, only allocated once one is run
+    private int[] queue = null;
+    private int[] targetStamp = null;
+
+    // Create a context able to search grids of up to the given number of cells
+    public SearchContext(int capacity) {
+        this(capacity, new SearchRecorder());
+    }
+
+    // Create a context which counts the work of its searches with the given recorder, as an engine's context does
+    SearchContext(int capacity, SearchRecorder recorder) {
+        this.capacity = capacity;
+        this.recorder = recorder;
+        this.g = new int[capacity];
+        this.previous = new int[capacity];
+        this.stamp = new int[capacity];
+        this.openSet = new IndexedHeap(capacity, recorder);
+    }
+
+    /*
+        Get the context of the calling thread, able to search grids of up to the given number of
+        cells. The same context is returned to a thread every time, unless it needs more room, in
+        which case a larger one replaces it. A context must not be handed to another thread.
+     */
+    public static SearchContext forCurrentThread(int capacity) {
+        SearchContext context = POOL.get();
+        if(context == null || context.capacity < capacity) {
+            context = new SearchContext(capacity);
+            POOL.set(context);
+        }
+        return context;
+    }
+
+    // Find the shortest path between two cells of the given grid with the calling thread's context
+    public static List<Node> findPath(Grid grid, int startX, int startY, int endX, int endY) {
+        return forCurrentThread(grid.getSize()).search(grid, startX, startY, endX, endY);
+    }
+
+    // Getter for the number of cells the context has room for
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Getter for the statistics of this context's last query, this is null unless SearchStats.ENABLED is set
+    public SearchStats getLastStats() {
+        return recorder.getLast();
+    }
+
+    /*
+        Find the shortest path between the start and end cells of the given grid, avoiding its walls
+        as GridAStar does (walls which have freed up by the time they are reached are not blocked).
+        The path is returned rather than kept, or null if there is none. The grid is only read, so
+        other contexts may search it at the same time, as long as nothing changes it meanwhile.
+     */
+    public List<Node> search(Grid grid, int startX, int startY, int endX, int endY) {
+        return search(grid, startX, startY, endX, endY, Heuristic.manhattan(grid), null, ReservationTable.SHARED);
+    }
+
+    /*
+        Find the shortest path as above, guided by the given heuristic, and treating the cells the
+        given reservations hold for agents other than 'agent' as walls, see GridPathfinder.isBlocked.
+        The reservations may be null. A heuristic with tables must already be up to date.
+     */
+    public List<Node> search(Grid grid, int startX, int startY, int endX, int endY,
+                             Heuristic heuristic, ReservationTable reservations, int agent) {
+        if(grid.getSize() > capacity)
+            throw new IllegalArgumentException("Grid is larger than the search context.");
+        if(!grid.isInGrid(startX, startY))
+            throw new IllegalArgumentException("Start node is outside of the grid.");
+        if(!grid.isInGrid(endX, endY))
+            throw new IllegalArgumentException("End node is outside of the grid.");
+        recorder.start();
+        int target = grid.index(endX, endY);
+        List<Node> path = null;
+        if(run(grid.index(startX, startY), target, heuristic, current -> expand(grid, current, reservations, agent)))
+            path = reconstructPath(grid, target);
+        recorder.finish(getClass(), path);
+        return path;
+    }
+
+    // Expands a cell of the search in progress, by relaxing the edge to each of the cells reached from it
+    @FunctionalInterface
+    interface Expander {
+        void expand(int current);
+    }
+
+    /*
+        Run A* from the start cell until the end cell is taken from the open set, returning whether
+        it was reached. Each cell taken is expanded by the given expander, which decides which cells
+        are reached from it and calls relax for each. The path is left in the previous cells, and the
+        caller starts and finishes the recorder, so that the stats are of the whole query.
+     */
+    boolean run(int start, int end, Heuristic heuristic, Expander expander) {
+        this.end = end;
+        this.heuristic = heuristic;
+        begin();
+        visit(start);
+        g[start] = 0;
+        openSet.clear();
+        openSet.update(start, heuristic.estimate(start, end));
+
+        while(!openSet.isEmpty()) {
+            int current = openSet.poll();
+            if(current == end)
+                return true;
+            recorder.expand();
+            expander.expand(current);
+        }
+        return false;
+    }
+
+    /*
+        Expand the given cell by relaxing the edge to each of its neighbours which is not blocked.
+        The neighbours are reached after g(n) + 1 moves, so a wall which has freed up by then, or a
+        reservation which has not started yet, is not blocked. Only the first arrival at each cell is
+        searched, so a path which has to arrive later to get past a wall is not found, see GridAStar.expand.
+     */
+    void expand(Grid grid, int current, ReservationTable reservations, int agent) {
+        int count = grid.neighbours(current, neighbours);
+        int depth = g[current] + 1;
+        for(int i = 0; i < count; i++) {
+            int next = neighbours[i];
+            if(grid.isBlocked(next, depth) || (reservations != null && reservations.isReserved(next, depth, agent)))
+                continue;
+            relax(current, next, 1);
+        }
+    }
+
+    /*
+        Relax the edge between two cells with the given cost. If the path to 'to' through 'from'
+        is shorter than its current g(n), then 'from' becomes its previous cell and it is added to
+        the open set (or has its f(n) value lowered if it is already in the open set).
+     */
+    void relax(int from, int to, int cost) {
+        visit(to);
+        int tempG = g[from] + cost;
+        if(tempG < g[to]) {
+            // A cell which has been reached but is not in the open set has already been expanded
+            if(SearchStats.ENABLED && g[to] != INFINITY && !openSet.contains(to))
+                recorder.reopen();
+            previous[to] = from;
+            g[to] = tempG;
+            openSet.update(to, tempG + heuristic.estimate(to, end));
+        }
+    }
+
+    /*
+        Search breadth first from the start cell until every one of the given target cells has been
+        reached (or every cell that can be reached has been), so that the paths from one source to
+        many targets cost a single search rather than one each. The distances and paths are read
+        afterwards with distanceTo and pathTo, until the next query with this context.
+     */
+    public void searchAll(Grid grid, int start, int[] targets) {
+        if(grid.getSize() > capacity)
+            throw new IllegalArgumentException("Grid is larger than the search context.");
+        if(queue == null) {
+            queue = new int[capacity];
+            targetStamp = new int[capacity];
+        }
+        recorder.start();
+        begin();
+
+        // Count each distinct target once, marking them so that reaching one is an O(1) check
+        int remaining = 0;
+        for(int target : targets) {
+            if(targetStamp[target] != searchId) {
+                targetStamp[target] = searchId;
+                remaining++;
+            }
+        }
+        visit(start);
+        g[start] = 0;
+        if(targetStamp[start] == searchId)
+            remaining--;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        // As every move costs 1, the first time a cell is reached is by a shortest path
+        while(head < tail && remaining > 0) {
+            int current = queue[head++];
+            recorder.expand();
+            int count = grid.neighbours(current, neighbours);
+            int depth = g[current] + 1;
+            for(int i = 0; i < count; i++) {
+                int next = neighbours[i];
+                if(stamp[next] == searchId || grid.isBlocked(next, depth))
+                    continue;
+                visit(next);
+                g[next] = depth;
+                previous[next] = current;
+                queue[tail++] = next;
+                if(targetStamp[next] == searchId)
+                    remaining--;
+            }
+        }
+        recorder.finish(getClass(), null);
+    }
+
+    // Getter for the number of moves to the given cell found by the last searchAll, or -1 if it was not reached
+    public int distanceTo(int index) {
+        return stamp[index] == searchId && g[index] != INFINITY ? g[index] : -1;
+    }
+
+    // Get the path to the given cell found by the last searchAll, or null if it was not reached
+    public List<Node> pathTo(Grid grid, int index) {
+        return distanceTo(index) < 0 ? null : reconstructPath(grid, index);
+    }
+
+    // Begin a new search, in the unlikely event that the id wraps around the stamps must be cleared
+    private void begin() {
+        if(++searchId == 0) {
+            Arrays.fill(stamp, 0);
+            if(targetStamp != null)
+                Arrays.fill(targetStamp, 0);
+            searchId = 1;
+        }
+    }
+
+    // Reset the values of the given cell if it has not yet been reached by the current search
+    private void visit(int index) {
+        if(stamp[index] != searchId) {
+            g[index] = INFINITY;
+            previous[index] = NONE;
+            stamp[index] = searchId;
+        }
+    }
+
+    /*
+        Reconstruct the path from the given cell back to the start cell by following the previous
+        cells, returning the index of each cell along the way. A cell and its previous cell may be
+        more than one move apart (see JumpPointSearch), as long as they are in a straight line, in
+        which case the cells between them are filled in.
+     */
+    int[] reconstructCells(Grid grid, int current) {
+        // The g(n) value of the end cell is the number of moves, so the path has one more cell than that
+        int[] cells = new int[g[current] + 1];
+        int i = cells.length - 1;
+        cells[i] = current;
+        while(previous[current] != NONE) {
+            int target = previous[current];
+            // The step between consecutive cells of a straight line, one of -width, 1, width or -1
+            int step = grid.getY(target) == grid.getY(current)
+                    ? Integer.signum(target - current)
+                    : Integer.signum(target - current) * grid.getWidth();
+            while(current != target) {
+                current += step;
+                cells[--i] = current;
+            }
+        }
+        return cells;
+    }
+
+    // Reconstruct the path from the given cell back to the start cell, creating a Node for each cell
+    private List<Node> reconstructPath(Grid grid, int current) {
+        int[] cells = reconstructCells(grid, current);
+        Node[] nodes = new Node[cells.length];
+        for(int i = 0; i < cells.length; i++)
+            nodes[i] = new Node(grid.getX(cells[i]), grid.getY(cells[i]));
+        return new ArrayList<>(Arrays.asList(nodes));
+    }
+}
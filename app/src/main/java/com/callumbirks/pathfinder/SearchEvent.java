@@ -0,0 +1,36 @@
+package com.callumbirks.pathfinder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+    A JFR event for a single search, committed by SearchRecorder when statistics are enabled and a
+    recording is running (e.g. -Dsnake.stats=true -XX:StartFlightRecording). Its duration is the time
+    the search took, so slow ticks in a recording can be attributed to the searches behind them.
+ */
+@Name("com.callumbirks.Search")
+@Label("Search")
+@Category("Snake Pathfinder")
+@Description("A single run of a pathfinding engine")
+class SearchEvent extends Event {
+    @Label("Engine")
+    String engine;
+
+    @Label("Expanded")
+    int expanded;
+
+    @Label("Pushes")
+    int pushes;
+
+    @Label("Pops")
+    int pops;
+
+    @Label("Reopened")
+    int reopened;
+
+    @Label("Path Length")
+    int pathLength;
+}
@@ -0,0 +1,85 @@
+package com.callumbirks.pathfinder;
+
+import java.util.List;
+
+/*
+    Counts the work done by the search in progress for an engine, and turns it into a SearchStats
+    once the search is finished. Every method does nothing unless SearchStats.ENABLED is set, and
+    they are small enough to be inlined, so when statistics are disabled they cost nothing.
+    When a JFR recording is running, each search is also committed as a SearchEvent.
+ */
+class SearchRecorder {
+    // The counts of the search in progress
+    private int expanded;
+    private int pushes;
+    private int pops;
+    private int reopened;
+    // The time the search in progress started at
+    private long startTime;
+    // The event for the search in progress
+    private SearchEvent event;
+    // The statistics of the last finished search
+    private SearchStats last = null;
+
+    // Begin counting a new search
+    void start() {
+        if(!SearchStats.ENABLED)
+            return;
+        expanded = 0;
+        pushes = 0;
+        pops = 0;
+        reopened = 0;
+        event = new SearchEvent();
+        event.begin();
+        startTime = System.nanoTime();
+    }
+
+    // Count a cell being expanded
+    void expand() {
+        if(SearchStats.ENABLED)
+            expanded++;
+    }
+
+    // Count a cell being pushed onto the open set
+    void push() {
+        if(SearchStats.ENABLED)
+            pushes++;
+    }
+
+    // Count a cell being popped off (or otherwise removed from) the open set
+    void pop() {
+        if(SearchStats.ENABLED)
+            pops++;
+    }
+
+    // Count a cell being reopened
+    void reopen() {
+        if(SearchStats.ENABLED)
+            reopened++;
+    }
+
+    // Finish the search in progress, which found the given path (or null if it found none)
+    void finish(Class<?> engineClass, List<Node> path) {
+        if(!SearchStats.ENABLED)
+            return;
+        String engine = engineClass.getSimpleName();
+        long nanos = System.nanoTime() - startTime;
+        last = new SearchStats(engine, expanded, pushes, pops, reopened, path == null ? 0 : path.size(), nanos);
+        event.end();
+        if(event.shouldCommit()) {
+            event.engine = engine;
+            event.expanded = expanded;
+            event.pushes = pushes;
+            event.pops = pops;
+            event.reopened = reopened;
+            event.pathLength = last.pathLength();
+            event.commit();
+        }
+        event = null;
+    }
+
+    // Getter for the statistics of the last finished search, this is null if statistics are disabled
+    SearchStats getLast() {
+        return last;
+    }
+}
@@ -0,0 +1,22 @@
+package com.callumbirks.pathfinder;
+
+/*
+    The cost of a single search; the number of cells expanded, the number of cells pushed onto and
+    popped off the open set, the number of cells which were reopened (reached again by a shorter path
+    after they had been expanded), the number of cells on the path found (0 if none was found) and
+    the time the search took. Cells removed from the open set other than by popping the lowest (as
+    D* Lite does) are counted as pops.
+
+    Statistics are only collected when the JVM is started with -Dsnake.stats=true. ENABLED is a
+    static final, so when it is false the JIT compiler removes every check of it and the counting
+    behind them, and the engines run exactly as they would without any statistics.
+ */
+public record SearchStats(String engine, int expanded, int pushes, int pops, int reopened, int pathLength, long nanos) {
+    // Whether statistics are collected, read once from the 'snake.stats' system property
+    public static final boolean ENABLED = Boolean.getBoolean("snake.stats");
+
+    // Check whether the search found a path
+    public boolean found() {
+        return pathLength > 0;
+    }
+}
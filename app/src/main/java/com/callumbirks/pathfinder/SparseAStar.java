@@ -0,0 +1,143 @@
+package com.callumbirks.pathfinder;
+
+import java.util.Arrays;
+
+/*
+    This class is an A* engine for very large boards, where the arrays GridAStar allocates up front
+    (several ints per cell of the grid, for its values and its open set) would take gigabytes before
+    the first search. The g(n) values and previous cells are held in PagedIntArrays, which only
+    allocate the pages of the grid a search actually reaches, and the open set is a plain binary heap
+    of packed (f(n), cell) pairs which grows as needed. Together with the paged walls of Grid, the
+    memory and set up time of the engine scale with the region of the board which is used rather
+    than with its area, at the cost of an extra array load for each value read. As the pages are
+    runs of rows (see Grid), the region is every row between the highest and lowest cells reached.
+
+    The open set has no decrease-key. When a cell is reached by a shorter path it is simply pushed
+    again, and the stale entry is skipped when it is popped, as its f(n) is higher than the cell's
+    current g(n) + h(n).
+ */
+public class SparseAStar extends GridPathfinder {
+    // The size the open set starts out with room for, it doubles whenever it is full
+    private static final int INITIAL_OPEN_CAPACITY = 256;
+
+    // The g(n) value of each cell
+    private final PagedIntArray g;
+    // The index of the previous cell along the path for each cell
+    private final PagedIntArray previous;
+    // The open set, a binary min-heap of (f(n) << 32 | cell), only the first 'openSize' elements are in use
+    private long[] open = new long[INITIAL_OPEN_CAPACITY];
+    private int openSize = 0;
+    // Scratch space for the neighbours of the cell currently being expanded
+    private final int[] neighbours = new int[4];
+
+    // Create an engine with its own empty grid of the given width and height
+    public SparseAStar(int width, int height) {
+        this(new Grid(width, height));
+    }
+
+    // Create an engine which searches the given grid
+    public SparseAStar(Grid grid) {
+        super(grid);
+        this.g = new PagedIntArray(grid.getSize(), INFINITY);
+        this.previous = new PagedIntArray(grid.getSize(), NONE);
+    }
+
+    /*
+        Run the algorithm between the start and end cells, as GridAStar.run does. If a path is found
+        it is stored in the 'path' variable and true is returned, otherwise the path is set to null
+        and false is returned.
+     */
+    @Override
+    public boolean run() {
+        checkEndpoints();
+        recorder.start();
+        heuristic.prepare();
+        g.clear();
+        previous.clear();
+        openSize = 0;
+
+        g.set(start, 0);
+        push(heuristic.estimate(start, end), start);
+        while(openSize > 0) {
+            long top = poll();
+            int current = (int) top;
+            int currentG = g.get(current);
+            // Skip entries left behind when the cell was pushed again with a lower f(n)
+            if((int) (top >>> 32) > currentG + heuristic.estimate(current, end))
+                continue;
+            if(current == end) {
+                setPath(reconstructPath(current));
+                recorder.finish(getClass(), path);
+                return true;
+            }
+            recorder.expand();
+            int count = grid.neighbours(current, neighbours);
+            int depth = currentG + 1;
+            for(int i = 0; i < count; i++) {
+                int next = neighbours[i];
+                if(depth < g.get(next) && !isBlocked(next, depth)) {
+                    g.set(next, depth);
+                    previous.set(next, current);
+                    push(depth + heuristic.estimate(next, end), next);
+                }
+            }
+        }
+        path = null;
+        recorder.finish(getClass(), path);
+        return false;
+    }
+
+    // Getter for the number of pages of g(n) values the engine has allocated, out of Grid.getPageCount
+    public int getAllocatedPages() {
+        return g.getAllocatedPages();
+    }
+
+    // Push a cell onto the open set with the given f(n) value, growing the heap if it is full
+    private void push(int f, int cell) {
+        if(SearchStats.ENABLED)
+            recorder.push();
+        if(openSize == open.length)
+            open = Arrays.copyOf(open, open.length * 2);
+        long key = ((long) f << 32) | cell;
+        int index = openSize++;
+        while(index > 0) {
+            int parent = (index - 1) >>> 1;
+            if(open[parent] <= key)
+                break;
+            open[index] = open[parent];
+            index = parent;
+        }
+        open[index] = key;
+    }
+
+    // Remove and return the entry with the lowest f(n) value from the open set
+    private long poll() {
+        if(SearchStats.ENABLED)
+            recorder.pop();
+        long top = open[0];
+        long key = open[--openSize];
+        int index = 0;
+        int half = openSize >>> 1;
+        while(index < half) {
+            int child = 2 * index + 1;
+            if(child + 1 < openSize && open[child + 1] < open[child])
+                child++;
+            if(key <= open[child])
+                break;
+            open[index] = open[child];
+            index = child;
+        }
+        open[index] = key;
+        return top;
+    }
+
+    // Reconstruct the cells of the path from the given cell (which would be the end cell) back to the start cell
+    private int[] reconstructPath(int current) {
+        int[] cells = new int[g.get(current) + 1];
+        for(int i = cells.length - 1; i >= 0; i--) {
+            cells[i] = current;
+            current = previous.get(current);
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,230 @@
+package com.callumbirks.sim;
+
+import com.callumbirks.pathfinder.Algorithm;
+import com.callumbirks.pathfinder.SearchStats;
+import com.callumbirks.snake.FailureCause;
+import com.callumbirks.snake.Game;
+import com.callumbirks.snake.GameStats;
+import com.callumbirks.snake.MultiGame;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+    A headless runner which plays many games to completion in parallel, without JavaFX, and reports
+    how quickly they ran and how they ended. Each game is given its own seed (the base seed plus the
+    game's number) so a batch is reproducible regardless of how the games are spread across threads.
+    With -Dsnake.stats=true the statistics of every search are summed over the batch and reported too.
+
+    With more than one snake, each game is a MultiGame of that many snakes on one board, and the games
+    are played one after another, with each tick's planning spread across the threads instead. These
+    games always plan with GridAStar, and end when every snake has died or they run out of ticks.
+
+    Usage: BatchRunner [--games N] [--width W] [--height H] [--seed S] [--algorithm NAME]
+                       [--threads T] [--max-ticks M] [--snakes K]
+ */
+public class BatchRunner {
+    // How a single game ended
+    public enum Outcome {
+        // The game was over, for the FailureCause of the result
+        FAILED,
+        // The snake filled the board
+        BOARD_FULL,
+        // The game was still running after the maximum number of ticks
+        TICK_LIMIT
+    }
+
+    // The result of a single game, the cause is the reason the game was over, or null unless the outcome is FAILED
+    public record Result(long seed, Outcome outcome, FailureCause cause, int ticks, int length, GameStats stats) {}
+
+    // The result of a single game of many snakes, the length is the sum of the lengths of the snakes still alive
+    public record MultiResult(long seed, int ticks, int alive, int length, Map<FailureCause, Integer> deaths,
+                              long replans, GameStats stats) {}
+
+    private int games = 1000;
+    private int width = 40;
+    private int height = 25;
+    private long seed = 0;
+    private Algorithm algorithm = Algorithm.GRID_ASTAR;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxTicks = 100_000;
+    private int snakes = 1;
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        BatchRunner runner = new BatchRunner();
+        runner.parse(args);
+        long startTime = System.nanoTime();
+        if(runner.snakes > 1) {
+            List<MultiResult> results = runner.runMulti();
+            runner.reportMulti(results, System.nanoTime() - startTime);
+            return;
+        }
+        List<Result> results = runner.run();
+        long elapsed = System.nanoTime() - startTime;
+        runner.report(results, elapsed);
+    }
+
+    // Read the options from the command line arguments
+    private void parse(String[] args) {
+        for(int i = 0; i < args.length; i++) {
+            if(i + 1 == args.length)
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            String value = args[++i];
+            switch(args[i - 1]) {
+                case "--games" -> games = Integer.parseInt(value);
+                case "--width" -> width = Integer.parseInt(value);
+                case "--height" -> height = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--algorithm" -> algorithm = Algorithm.valueOf(value.toUpperCase(Locale.ROOT));
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--max-ticks" -> maxTicks = Integer.parseInt(value);
+                case "--snakes" -> snakes = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+            }
+        }
+        // The snake starts at (5, 5) so the board must be larger than that
+        if(width < 6 || height < 6)
+            throw new IllegalArgumentException("Board must be at least 6x6.");
+        if(games <= 0 || threads <= 0 || maxTicks <= 0 || snakes <= 0)
+            throw new IllegalArgumentException("Games, threads, max ticks and snakes must be positive.");
+    }
+
+    // Play every game across a pool of 'threads' threads and collect the results in game order
+    public List<Result> run() throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>(games);
+            for(int i = 0; i < games; i++) {
+                long gameSeed = seed + i;
+                futures.add(executor.submit(() -> play(gameSeed)));
+            }
+            List<Result> results = new ArrayList<>(games);
+            for(Future<Result> future : futures)
+                results.add(future.get());
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Play a single game with the given seed until it is over, the board is full or it runs out of ticks
+    private Result play(long gameSeed) {
+        Game game = new Game(width, height, algorithm, gameSeed);
+        game.updatePath();
+        int ticks = 0;
+        Outcome outcome = Outcome.TICK_LIMIT;
+        FailureCause cause = null;
+        while(ticks < maxTicks) {
+            cause = game.getFailureCause();
+            if(cause != null) {
+                outcome = Outcome.FAILED;
+                break;
+            }
+            if(game.isBoardFull()) {
+                outcome = Outcome.BOARD_FULL;
+                break;
+            }
+            game.step();
+            ticks++;
+        }
+        return new Result(gameSeed, outcome, cause, ticks, game.getSnake().getLength(), game.getStats());
+    }
+
+    // Play every game of many snakes in turn, with the planning of each tick spread across a pool of 'threads' threads
+    public List<MultiResult> runMulti() {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<MultiResult> results = new ArrayList<>(games);
+            for(int i = 0; i < games; i++)
+                results.add(playMulti(seed + i, executor));
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Play a single game of many snakes with the given seed until every snake has died or it runs out of ticks
+    private MultiResult playMulti(long gameSeed, ExecutorService executor) {
+        MultiGame game = new MultiGame(width, height, snakes, gameSeed, executor, threads);
+        while(game.getTick() < maxTicks && !game.over())
+            game.step();
+        int length = 0;
+        for(int i = 0; i < game.getSnakeCount(); i++) {
+            if(game.isAlive(i))
+                length += game.getSnake(i).getLength();
+        }
+        return new MultiResult(gameSeed, game.getTick(), game.getAliveCount(), length, game.getDeaths(),
+                game.getReplans(), game.getStats());
+    }
+
+    // Print the throughput of the batch of games of many snakes, how many snakes survived and how the others died
+    private void reportMulti(List<MultiResult> results, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long totalTicks = 0;
+        long totalAlive = 0;
+        long totalLength = 0;
+        long replans = 0;
+        Map<FailureCause, Integer> deaths = new EnumMap<>(FailureCause.class);
+        GameStats stats = new GameStats();
+        for(MultiResult result : results) {
+            stats.merge(result.stats());
+            totalTicks += result.ticks();
+            totalAlive += result.alive();
+            totalLength += result.length();
+            replans += result.replans();
+            result.deaths().forEach((cause, count) -> deaths.merge(cause, count, Integer::sum));
+        }
+        System.out.printf("%d games of %d snakes on %dx%d on %d threads in %.2fs%n",
+                results.size(), snakes, width, height, threads, seconds);
+        System.out.printf("ticks/sec: %.0f%n", totalTicks / seconds);
+        System.out.printf("replans/tick: %.2f%n", (double) replans / Math.max(totalTicks, 1));
+        System.out.printf("alive at end: mean %.1f, mean length %.1f%n",
+                (double) totalAlive / results.size(), (double) totalLength / Math.max(totalAlive, 1));
+        for(Map.Entry<FailureCause, Integer> entry : deaths.entrySet())
+            System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+        if(SearchStats.ENABLED)
+            System.out.println(stats);
+    }
+
+    // Print the throughput of the batch, the final lengths of the snakes and how the games ended
+    private void report(List<Result> results, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long totalTicks = 0;
+        long totalLength = 0;
+        int minLength = Integer.MAX_VALUE;
+        int maxLength = 0;
+        Map<FailureCause, Integer> failures = new EnumMap<>(FailureCause.class);
+        Map<Outcome, Integer> outcomes = new EnumMap<>(Outcome.class);
+        GameStats stats = new GameStats();
+        for(Result result : results) {
+            stats.merge(result.stats());
+            totalTicks += result.ticks();
+            totalLength += result.length();
+            minLength = Math.min(minLength, result.length());
+            maxLength = Math.max(maxLength, result.length());
+            if(result.outcome() == Outcome.FAILED)
+                failures.merge(result.cause(), 1, Integer::sum);
+            else
+                outcomes.merge(result.outcome(), 1, Integer::sum);
+        }
+        System.out.printf("%d games of %dx%d with %s on %d threads in %.2fs%n",
+                results.size(), width, height, algorithm, threads, seconds);
+        System.out.printf("games/sec: %.1f%n", results.size() / seconds);
+        System.out.printf("ticks/sec: %.0f%n", totalTicks / seconds);
+        System.out.printf("final length: mean %.1f, min %d, max %d%n",
+                (double) totalLength / results.size(), minLength, maxLength);
+        for(Map.Entry<FailureCause, Integer> entry : failures.entrySet())
+            System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+        for(Map.Entry<Outcome, Integer> entry : outcomes.entrySet())
+            System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+        if(SearchStats.ENABLED)
+            System.out.println(stats);
+    }
+}
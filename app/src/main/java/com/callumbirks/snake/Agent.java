@@ -0,0 +1,162 @@
+package com.callumbirks.snake;
+
+import com.callumbirks.pathfinder.DistanceFlood;
+import com.callumbirks.pathfinder.Grid;
+import com.callumbirks.pathfinder.GridAStar;
+import com.callumbirks.pathfinder.CellPath;
+import com.callumbirks.pathfinder.ReservationTable;
+import com.callumbirks.pathfinder.SearchStats;
+
+/*
+    One snake of a MultiGame. The agent plans with Engines which it is handed, rather than engines of
+    its own, as the scratch space of an engine (the g(n) values, open set and so on) is as large as
+    the board. The game keeps one set of engines for each of its planning tasks, so the scratch space
+    grows with the number of threads planning rather than the number of snakes, and is reused from
+    tick to tick without the threads sharing any of it.
+ */
+class Agent {
+    // The engines an agent plans with, which search the game's shared board, see MultiGame.planTasks
+    static final class Engines {
+        private final GridAStar search;
+        // Floods from the head to choose a fallback target when no food can be reached, see Planner
+        private final DistanceFlood flood;
+
+        Engines(Grid board) {
+            search = new GridAStar(board);
+            flood = new DistanceFlood(board);
+        }
+    }
+
+    private final int id;
+    private final Snake snake;
+    private final int width;
+    // The statistics of this agent's searches, only recorded when SearchStats.ENABLED is set
+    private final GameStats stats = new GameStats();
+    private Planner.Plan plan = null;
+    private boolean alive = true;
+
+    Agent(int id, Snake snake, int width) {
+        this.id = id;
+        this.snake = snake;
+        this.width = width;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    Snake getSnake() {
+        return snake;
+    }
+
+    GameStats getStats() {
+        return stats;
+    }
+
+    boolean isAlive() {
+        return alive;
+    }
+
+    void kill() {
+        alive = false;
+        plan = null;
+    }
+
+    /*
+        The number of ticks the snake holds each cell it enters, until its tail leaves, plus one so
+        that no other snake plans to enter a cell on the tick it is left, in case this snake eats and
+        its tail stays where it is.
+     */
+    int getHold() {
+        return snake.getLength() + snake.getPendingGrowth() + 1;
+    }
+
+    /*
+        Plan from the head to the nearest food, avoiding the reservations in the given table, or if no
+        food can be reached, to the farthest cell a flood from the head can reach. Only this agent's
+        own state and the given engines are written, so agents can plan at the same time with engines
+        of their own, as long as the board, the table and the food do not change.
+     */
+    void plan(int[] foods, ReservationTable reservations, Engines engines) {
+        GridAStar search = engines.search;
+        DistanceFlood flood = engines.flood;
+        int headX = snake.getX();
+        int headY = snake.getY();
+        int food = nearest(foods, reservations);
+        search.setReservations(reservations, id);
+        flood.setReservations(reservations, id);
+        if(food != Snake.NONE) {
+            search.setStart(headX, headY);
+            search.setEnd(food % width, food / width);
+            boolean found = search.run();
+            if(SearchStats.ENABLED)
+                stats.record(search.getLastStats());
+            if(found) {
+                plan = new Planner.Plan(food % width, food / width, search.getCompactPath());
+                return;
+            }
+        }
+        flood.setStart(headX, headY);
+        flood.flood();
+        if(SearchStats.ENABLED)
+            stats.recordFallback(flood.getLastStats());
+        int[] fallback = flood.getFarthest();
+        plan = fallback == null
+                ? new Planner.Plan(headX, headY, null)
+                : new Planner.Plan(fallback[0], fallback[1], flood.getCompactPathTo(fallback[0], fallback[1]));
+    }
+
+    /*
+        Find the food nearest the head by Manhattan distance, or NONE if there is none. Food another
+        agent has reserved its cell on the way to is left to that agent, as it will get there first,
+        and searching for it would only search the whole board without finding a way through.
+     */
+    private int nearest(int[] foods, ReservationTable reservations) {
+        int best = Snake.NONE;
+        int bestDistance = Integer.MAX_VALUE;
+        for(int food : foods) {
+            if(food == Snake.NONE || reservations.isClaimed(food, id))
+                continue;
+            int distance = Math.abs(food % width - snake.getX()) + Math.abs(food / width - snake.getY());
+            if(distance < bestDistance) {
+                best = food;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /*
+        Check whether the plan has to be made again, as it has no moves (which may only be down to the
+        reservations it was planned against) or the first 'window' moves of it pass through a cell
+        reserved by another agent.
+     */
+    boolean needsReplan(ReservationTable reservations, int window) {
+        CellPath path = plan.path();
+        if(path == null)
+            return true;
+        for(int move = 1; move < path.size() && move <= window; move++) {
+            if(reservations.isReserved(path.cellAt(move), move, id))
+                return true;
+        }
+        return false;
+    }
+
+    // Reserve the cells of the first 'window' moves of the plan, each for as long as the snake will hold it
+    void reserve(ReservationTable reservations, int window) {
+        CellPath path = plan.path();
+        if(path == null)
+            return;
+        int hold = getHold();
+        int now = reservations.getNow();
+        for(int move = 1; move < path.size() && move <= window; move++)
+            reservations.reserve(path.cellAt(move), now + move, now + move + hold, id);
+    }
+
+    // Get the direction of the first move of the plan, or null if there is no move to make
+    Direction nextMove() {
+        if(plan == null || plan.path() == null || plan.path().size() < 2)
+            return null;
+        return Direction.fromMove(plan.path().moveAt(0));
+    }
+}
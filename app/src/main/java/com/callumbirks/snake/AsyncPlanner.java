@@ -0,0 +1,69 @@
+package com.callumbirks.snake;
+
+import com.callumbirks.pathfinder.Algorithm;
+import com.callumbirks.pathfinder.SearchStats;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+    Plans on another thread. A request hands the worker an immutable GameSnapshot, and the worker
+    rebuilds its own walls from the snapshot and plans with its own pathfinder, so it shares no
+    mutable state with the game. The finished plan is published through an AtomicReference which
+    the game polls on its next tick, so neither side ever waits for the other.
+
+    Only one request is worked on at a time. Requests made while the worker is busy are dropped, as
+    the game will ask again on a later tick with a newer snapshot if it still needs a plan.
+ */
+class AsyncPlanner {
+    // A finished plan, the snapshot it was planned from, and the statistics of its searches (null unless SearchStats.ENABLED is set)
+    record Result(GameSnapshot snapshot, Planner.Plan plan, GameStats stats) {}
+
+    private final int width;
+    private final Planner planner;
+    private final Executor executor;
+    // The latest finished plan which the game has not yet taken
+    private final AtomicReference<Result> result = new AtomicReference<>();
+    // Whether a request is being worked on
+    private final AtomicBoolean busy = new AtomicBoolean(false);
+
+    AsyncPlanner(int width, int height, Algorithm algorithm, Executor executor) {
+        this.width = width;
+        // Each request records its statistics separately, see plan
+        this.planner = new Planner(width, height, algorithm, null);
+        this.executor = executor;
+    }
+
+    // Ask for a plan from the given snapshot, unless one is already being worked on
+    void request(GameSnapshot snapshot) {
+        if(!busy.compareAndSet(false, true))
+            return;
+        executor.execute(() -> {
+            try {
+                // The game merges the statistics into its own on its own thread, as GameStats is not thread safe
+                GameStats stats = SearchStats.ENABLED ? new GameStats() : null;
+                planner.setStats(stats);
+                result.set(new Result(snapshot, plan(snapshot), stats));
+            } finally {
+                busy.set(false);
+            }
+        });
+    }
+
+    // Take the latest finished plan, or null if there is none
+    Result poll() {
+        return result.getAndSet(null);
+    }
+
+    // Rebuild the walls from the snapshot, in the same way Game keeps them, then plan (on the worker)
+    private Planner.Plan plan(GameSnapshot snapshot) {
+        int[] body = snapshot.body();
+        planner.resetWalls();
+        for(int part = 1; part < body.length; part++)
+            planner.setWallUntil(body[part] % width, body[part] / width, snapshot.tick() - part);
+        int time = snapshot.tick() - body.length - snapshot.pendingGrowth();
+        return planner.plan(snapshot.head() % width, snapshot.head() / width, snapshot.tail(),
+                snapshot.pendingGrowth(), time, snapshot.foodX(), snapshot.foodY());
+    }
+}
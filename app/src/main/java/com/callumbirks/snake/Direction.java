@@ -4,5 +4,13 @@ public enum Direction {
     UP,
     RIGHT,
     DOWN,
-    LEFT
+    LEFT;
+
+    // Every direction, declared in the same order as the moves of a CellPath (CellPath.UP to CellPath.LEFT), so a move indexes its direction
+    private static final Direction[] BY_MOVE = values();
+
+    // Get the direction of the given move of a CellPath, see CellPath.moveAt
+    static Direction fromMove(int move) {
+        return BY_MOVE[move];
+    }
 }
@@ -0,0 +1,13 @@
+package com.callumbirks.snake;
+
+// The reasons a Game can be over
+public enum FailureCause {
+    // No path could be found to the food or to any fallback target
+    NO_PATH,
+    // The snake's head left the board
+    OUT_OF_BOUNDS,
+    // The snake's head ran into its body
+    SELF_COLLISION,
+    // The snake's head ran into another snake, or met another snake's head, see MultiGame
+    SNAKE_COLLISION
+}
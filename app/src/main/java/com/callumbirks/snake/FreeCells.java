@@ -0,0 +1,71 @@
+package com.callumbirks.snake;
+
+import java.util.Random;
+
+/*
+    An index of the cells of the board which are not occupied. The free cells are kept packed at the
+    front of a dense array, alongside the position of each cell within that array, so a cell can be
+    added or removed by swapping it with the last free cell, and a uniformly random free cell can be
+    picked with a single random index. All of these are O(1), however full the board is.
+ */
+public class FreeCells {
+    // Value held in 'position' for cells which are not free, and returned when there is no free cell
+    public static final int NONE = -1;
+
+    // The free cells, only the first 'count' elements are in use
+    private final int[] cells;
+    // The position of each cell within 'cells', indexed by cell
+    private final int[] position;
+    // The number of free cells
+    private int count;
+
+    // Create an index for a board of the given number of cells, all of which start free
+    public FreeCells(int size) {
+        cells = new int[size];
+        position = new int[size];
+        for(int i = 0; i < size; i++) {
+            cells[i] = i;
+            position[i] = i;
+        }
+        count = size;
+    }
+
+    // Getter for the number of free cells
+    public int size() {
+        return count;
+    }
+
+    // Check whether there are no free cells left, i.e. the board is full
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    // Check whether the given cell is free
+    public boolean contains(int cell) {
+        return position[cell] != NONE;
+    }
+
+    // Mark the given cell as free, if it is not already
+    public void add(int cell) {
+        if(position[cell] != NONE)
+            return;
+        cells[count] = cell;
+        position[cell] = count++;
+    }
+
+    // Mark the given cell as occupied, if it is not already, by moving the last free cell into its place
+    public void remove(int cell) {
+        int index = position[cell];
+        if(index == NONE)
+            return;
+        int last = cells[--count];
+        cells[index] = last;
+        position[last] = index;
+        position[cell] = NONE;
+    }
+
+    // Pick a uniformly random free cell, or NONE if the board is full
+    public int random(Random rand) {
+        return count == 0 ? NONE : cells[rand.nextInt(count)];
+    }
+}
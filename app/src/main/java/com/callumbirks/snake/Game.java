@@ -1,103 +1,242 @@
 package com.callumbirks.snake;
 
-import com.callumbirks.pathfinder.AStar;
-import com.callumbirks.pathfinder.Node;
+import com.callumbirks.pathfinder.Algorithm;
+import com.callumbirks.pathfinder.CellPath;
 
 import java.util.Random;
+import java.util.concurrent.Executor;
 
 public class Game {
     private final Snake snake;
     private final Food food;
     private final int WIDTH;
     private final int HEIGHT;
-    private static final Random rand = new Random();
-    private final AStar aStar;
+    private final Random rand;
+    private final Algorithm algorithm;
+    // Plans on this thread, with walls kept in step with the snake as it moves
+    private final Planner planner;
+    // Plans on another thread when planning asynchronously, otherwise null, see planAsync
+    private AsyncPlanner asyncPlanner = null;
     // Public target for GameController::render()
     public int[] target = new int[] { 0, 0 };
+    // The path currently being followed, and the index of the snake's head along it
+    private CellPath plan = null;
+    private int planIndex = 0;
+    // The statistics of the searches made over the game, only recorded when SearchStats.ENABLED is set
+    private final GameStats stats = new GameStats();
 
     public Game(int width, int height) {
-        snake = new Snake(5, 5);
+        this(width, height, Algorithm.GRID_ASTAR);
+    }
+
+    public Game(int width, int height, Algorithm algorithm) {
+        this(width, height, algorithm, new Random());
+    }
+
+    // Create a game whose food positions are generated from the given seed, so that it can be replayed
+    public Game(int width, int height, Algorithm algorithm, long seed) {
+        this(width, height, algorithm, new Random(seed));
+    }
+
+    private Game(int width, int height, Algorithm algorithm, Random rand) {
+        this.rand = rand;
+        this.algorithm = algorithm;
         WIDTH = width;
         HEIGHT = height;
+        snake = new Snake(5, 5, width, height);
         food = new Food();
         food.setPos(generateFoodPos());
-        aStar = new AStar(width, height);
+        planner = new Planner(width, height, algorithm, stats);
+    }
+
+    /*
+        From now on plan on another thread, run by the given executor. While a plan is being worked on
+        the snake carries on along its previous plan, and if it runs out of moves before the new plan
+        arrives (as it does whenever it eats), that tick is planned on this thread instead, as the
+        snake can not stop. The game itself must still only be used from one thread.
+        Planners which only plan a single move at a time (HamiltonianCycle) gain nothing from this.
+     */
+    public void planAsync(Executor executor) {
+        asyncPlanner = new AsyncPlanner(WIDTH, HEIGHT, algorithm, executor);
     }
 
     public void step() {
-        updatePath();
+        if(asyncPlanner == null) {
+            if(!isPlanValid())
+                updatePath();
+        } else {
+            updatePathAsync();
+        }
         moveSnake();
         if(checkFood())
             eat();
     }
 
     public void updatePath() {
-        aStar.resetWalls();
-        aStar.setStart(snake.getX(), snake.getY());
-        for(SnakePart part : snake.getBody(false)) {
-            aStar.setWall(part.x, part.y, true);
-        }
-        // Try and pathfind food, otherwise pathfind random location
-        // We can pathfind food again when a path is available.
-        target[0] = food.getX();
-        target[1] = food.getY();
-        // max attempts to stop infinite loop
-        int numAttempts = 0;
-        while(numAttempts++ < 20 && !pathfindTarget(target[0], target[1])) {
-            target = generateFoodPos();
+        /*
+            The walls are kept up to date as the snake moves, see updateWalls. Each body segment is a
+            wall until the move it leaves its cell, which is at the time it was entered (see
+            Snake.enteredAt) once the current time is set to the moves made less the moves the tail
+            still has to make to reach it.
+         */
+        int time = snake.getMoves() - snake.getLength() - snake.getPendingGrowth();
+        follow(planner.plan(snake.getX(), snake.getY(), snake.getTail(), snake.getPendingGrowth(),
+                time, food.getX(), food.getY()), 0);
+    }
+
+    /*
+        Take the latest plan from the async planner if it still fits the game, and ask for a new one
+        if the current plan is no longer valid. The previous plan is followed while the new one is
+        worked on, and if it has no moves left, a plan is made on this thread for this tick. The
+        statistics of the worker's searches are added to the game's here, on the game's thread.
+     */
+    private void updatePathAsync() {
+        AsyncPlanner.Result result = asyncPlanner.poll();
+        if(result != null) {
+            if(result.stats() != null)
+                stats.merge(result.stats());
+            adopt(result);
         }
+        if(isPlanValid())
+            return;
+        asyncPlanner.request(snapshot());
+        if(!hasNextMove())
+            updatePath();
+    }
+
+    /*
+        Follow a plan made from a snapshot, if it still fits the game. If the food has moved since the
+        snapshot, the snake has grown and the plan's walls are out of date, so it is dropped. Otherwise
+        the snake has made some moves since the snapshot, and as long as the head is where the plan
+        would have taken it by now, the rest of the plan is as safe as if it had been followed from
+        the start; the cells the head passed instead are all closer to the snapshot's head than the
+        cells still ahead on the plan, which is a shortest path.
+     */
+    private void adopt(AsyncPlanner.Result result) {
+        GameSnapshot snapshot = result.snapshot();
+        if(snapshot.foodX() != food.getX() || snapshot.foodY() != food.getY())
+            return;
+        int behind = snake.getMoves() - snapshot.tick();
+        CellPath path = result.plan().path();
+        // No path means the game is over, but only if nothing has changed since the snapshot
+        if(path == null ? behind != 0 : behind >= path.size())
+            return;
+        if(path != null && (path.getX(behind) != snake.getX() || path.getY(behind) != snake.getY()))
+            return;
+        follow(result.plan(), behind);
+    }
+
+    // Follow the given plan, from the given index along its path
+    private void follow(Planner.Plan next, int index) {
+        target[0] = next.targetX();
+        target[1] = next.targetY();
+        plan = next.path();
+        planIndex = index;
     }
 
-    private boolean pathfindTarget(int x, int y) {
-        aStar.setEnd(x, y);
-        return aStar.run();
+    // Take an immutable copy of the parts of the game which planning depends on
+    public GameSnapshot snapshot() {
+        int[] body = new int[snake.getLength()];
+        for(int part = 0; part < body.length; part++)
+            body[part] = snake.cellAt(part);
+        return new GameSnapshot(snake.getMoves(), body, snake.getPendingGrowth(), food.getX(), food.getY());
+    }
+
+    /*
+        Check whether the current plan can still be followed without searching again. The plan was
+        found with every body segment as a wall until the tail leaves it, and after that the body only
+        ever occupies cells the head has already passed along the plan, except when the snake grows,
+        which delays the tail, but only happens when food is eaten, and that moves the food away from
+        the target. So the remaining plan stays valid
+        for as long as the head is where the plan expects, there is a move left, and the target is
+        still the food.
+        While heading for a fallback target, food is searched for again every tick.
+     */
+    private boolean isPlanValid() {
+        if(!hasNextMove())
+            return false;
+        if(plan.getX(planIndex) != snake.getX() || plan.getY(planIndex) != snake.getY())
+            return false;
+        return target[0] == food.getX() && target[1] == food.getY();
+    }
+
+    // Check whether the plan has a move left
+    private boolean hasNextMove() {
+        return plan != null && planIndex + 1 < plan.size();
     }
 
     public void moveSnake() {
+        int oldX = snake.getX();
+        int oldY = snake.getY();
         Direction newDirection = snake.getDirection();
-        if(aStar.getPath() != null && aStar.getPath().size() > 1) {
-            Node next = aStar.getPath().get(1);
+        if(hasNextMove()) {
             try {
-                newDirection = calcDirection(next);
-            } catch (Exception e) {
+                newDirection = calcDirection();
+                planIndex++;
+            } catch (IllegalStateException e) {
                 e.printStackTrace();
             }
         }
         snake.move(newDirection);
+        updateWalls(oldX, oldY);
     }
 
-    private Direction calcDirection(Node next) throws Exception {
-        // Next node in path is above Snake
-        if(next.getY() == snake.getY() - 1)
-            return Direction.UP;
-        // ... to the right
-        else if(next.getX() == snake.getX() + 1)
-            return Direction.RIGHT;
-        // ... below
-        else if(next.getY() == snake.getY() + 1)
-            return Direction.DOWN;
-        // ... to the left
-        else if(next.getX() == snake.getX() - 1)
-            return Direction.LEFT;
-        else
-            throw new Exception("Path is not adjacent to snake head");
+    /*
+        Keep the pathfinder's walls (the body without the head) in step with the snake. A move only
+        changes two cells; the old head becomes part of the body, and the cell the tail left is freed.
+     */
+    private void updateWalls(int oldX, int oldY) {
+        if(snake.isOutOfBounds())
+            return;
+        if(snake.getLength() > 1)
+            planner.setWallUntil(oldX, oldY, snake.enteredAt(1));
+        int vacated = snake.getVacated();
+        if(vacated != Snake.NONE)
+            planner.setWall(vacated % WIDTH, vacated / WIDTH, false);
+    }
+
+    // Read the direction of the next move straight from the plan, which throws if the plan is not a chain of neighbours
+    private Direction calcDirection() {
+        return Direction.fromMove(plan.moveAt(planIndex));
     }
 
     public void eat() {
+        int length = snake.getLength();
         snake.grow();
-        food.setPos(generateFoodPos());
+        // If the snake grew straight away its new tail is a wall, otherwise it grows on the next move
+        if(snake.getLength() > length)
+            planner.setWallUntil(snake.getTail() % WIDTH, snake.getTail() / WIDTH, snake.enteredAt(snake.getLength() - 1));
+        // The rest of the plan expected the tail to keep moving, so it is not followed any further
+        if(plan != null)
+            planIndex = plan.size() - 1;
+        // When the snake fills the board there is nowhere left for food, and the game is won
+        int[] foodPos = generateFoodPos();
+        if(foodPos != null)
+            food.setPos(foodPos);
     }
 
     public boolean over() {
-        if(aStar.getPath() == null || aStar.getPath().size() == 0)
-            return true;
+        return getFailureCause() != null;
+    }
+
+    // Get the reason the game is over, or null if it is not over
+    public FailureCause getFailureCause() {
+        if(plan == null || plan.size() == 0)
+            return FailureCause.NO_PATH;
         if(!isSnakeInBounds())
-            return true;
-        for(SnakePart part : snake.getBody(false)) {
-            if (part.x == snake.getX() && part.y == snake.getY())
-                return true;
-        }
-        return aStar.getPath() == null;
+            return FailureCause.OUT_OF_BOUNDS;
+        if(snake.isCollided())
+            return FailureCause.SELF_COLLISION;
+        return null;
+    }
+
+    // Check whether the snake fills the whole board, in which case there is nowhere left for food
+    public boolean isBoardFull() {
+        return snake.fillsBoard();
+    }
+
+    public GameStats getStats() {
+        return stats;
     }
 
     public Snake getSnake() {
@@ -122,22 +261,11 @@ public class Game {
         return inBounds(WIDTH, HEIGHT, snake.getX(), snake.getY());
     }
 
+    // Pick a random cell which the snake does not occupy, or null if the snake fills the board
     private int[] generateFoodPos() {
-        int foodX;
-        int foodY;
-        long positionsTried = 0;
-        do {
-            foodX = rand.nextInt(WIDTH);
-            foodY = rand.nextInt(HEIGHT);
-        } while(insideSnake(foodX, foodY) && positionsTried++ < (long) WIDTH * HEIGHT);
-        return new int[] { foodX, foodY };
-    }
-
-    private boolean insideSnake(int foodX, int foodY) {
-        for(SnakePart part : snake.getBody()) {
-            if(part.x == foodX && part.y == foodY)
-                return true;
-        }
-        return false;
+        int cell = snake.randomFreeCell(rand);
+        if(cell == Snake.NONE)
+            return null;
+        return new int[] { cell % WIDTH, cell / WIDTH };
     }
 }
@@ -0,0 +1,18 @@
+package com.callumbirks.snake;
+
+/*
+    An immutable copy of the parts of a game which planning depends on, taken between ticks so that
+    a plan can be worked on by another thread while the game carries on. The body holds the cell
+    indices (y * width + x) of the snake from the head to the tail, and must not be modified.
+ */
+public record GameSnapshot(int tick, int[] body, int pendingGrowth, int foodX, int foodY) {
+    // Getter for the cell index of the head
+    public int head() {
+        return body[0];
+    }
+
+    // Getter for the cell index of the tail
+    public int tail() {
+        return body[body.length - 1];
+    }
+}
@@ -0,0 +1,107 @@
+package com.callumbirks.snake;
+
+import com.callumbirks.pathfinder.SearchStats;
+
+import java.util.Locale;
+
+/*
+    The statistics of every search made over a game (or a batch of games, see merge), summed from
+    the SearchStats of each run. The slowest search is kept as well, so that a slow tick can be
+    attributed to the search behind it. Nothing is recorded unless SearchStats.ENABLED is set.
+ */
+public class GameStats {
+    // The number of searches, and how many of them did not find a path
+    private int searches = 0;
+    private int failed = 0;
+    // The number of times the food could not be reached, and the fallback was used instead
+    private int fallbacks = 0;
+    // The totals of the counts of every search
+    private long expanded = 0;
+    private long pushes = 0;
+    private long pops = 0;
+    private long reopened = 0;
+    private long nanos = 0;
+    // The search which took the longest
+    private SearchStats slowest = null;
+
+    // Add the statistics of a search, this does nothing if they are null (statistics are disabled)
+    public void record(SearchStats stats) {
+        if(stats == null)
+            return;
+        searches++;
+        if(!stats.found())
+            failed++;
+        expanded += stats.expanded();
+        pushes += stats.pushes();
+        pops += stats.pops();
+        reopened += stats.reopened();
+        nanos += stats.nanos();
+        if(slowest == null || stats.nanos() > slowest.nanos())
+            slowest = stats;
+    }
+
+    // Count a use of the fallback, and add the statistics of its flood if one was needed
+    public void recordFallback(SearchStats stats) {
+        fallbacks++;
+        record(stats);
+    }
+
+    // Add the statistics of another game to these
+    public void merge(GameStats other) {
+        searches += other.searches;
+        failed += other.failed;
+        fallbacks += other.fallbacks;
+        expanded += other.expanded;
+        pushes += other.pushes;
+        pops += other.pops;
+        reopened += other.reopened;
+        nanos += other.nanos;
+        if(other.slowest != null && (slowest == null || other.slowest.nanos() > slowest.nanos()))
+            slowest = other.slowest;
+    }
+
+    public int getSearches() {
+        return searches;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getFallbacks() {
+        return fallbacks;
+    }
+
+    public long getExpanded() {
+        return expanded;
+    }
+
+    public long getPushes() {
+        return pushes;
+    }
+
+    public long getPops() {
+        return pops;
+    }
+
+    public long getReopened() {
+        return reopened;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public SearchStats getSlowest() {
+        return slowest;
+    }
+
+    @Override
+    public String toString() {
+        double perSearch = Math.max(searches, 1);
+        return String.format(Locale.ROOT,
+                "searches %d (%d failed, %d fallbacks), per search: expanded %.1f, pushes %.1f, pops %.1f, reopened %.2f, %.1fus, slowest %s",
+                searches, failed, fallbacks, expanded / perSearch, pushes / perSearch, pops / perSearch,
+                reopened / perSearch, nanos / perSearch / 1e3, slowest);
+    }
+}
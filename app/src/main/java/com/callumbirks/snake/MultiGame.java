@@ -0,0 +1,348 @@
+package com.callumbirks.snake;
+
+import com.callumbirks.pathfinder.Grid;
+import com.callumbirks.pathfinder.ReservationTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/*
+    Many snakes on one shared board, each chasing the nearest of as many pieces of food as there are
+    snakes. Every snake's body is a wall on the board which frees up when its tail leaves (see
+    Grid.setWallUntil), and the snakes plan cooperatively against a space-time ReservationTable, so
+    that they avoid the cells the others will move into as well as the ones they are in now.
+
+    Each tick runs in three phases. First every agent plans at once, spread over the executor, against
+    the board and the reservations of the previous tick, which are a good guess at what the others
+    will do. Then, in order of the agents, each agent's plan is checked against the reservations made
+    so far this tick, and only if it clashes (or has no moves) does the agent plan again (on this thread) before
+    reserving the first RESERVATION_WINDOW moves of its plan. So the agents earlier in the order have
+    priority, and the planning is only serial for the agents whose plans clash. Finally every snake
+    makes its move at the same time. A snake dies if it has nowhere to move, or runs into any snake,
+    and when two heads meet in a cell both snakes die. A dead snake is removed from the board.
+ */
+public class MultiGame {
+    // The number of moves of each plan which are reserved, beyond this the snakes do not avoid each other
+    public static final int RESERVATION_WINDOW = 16;
+
+    private final int width;
+    private final Grid board;
+    // The cells which no snake occupies, to place food in
+    private final FreeCells free;
+    // The agent whose snake was last set as a wall in each cell, to tell a snake running into itself from another
+    private final int[] owner;
+    private final ReservationTable reservations;
+    private final Agent[] agents;
+    // The cell of each piece of food, or Snake.NONE when there is no room for it
+    private final int[] foods;
+    // The piece of food in each cell, or -1 for the cells without food, see foodAt
+    private final int[] foodIndex;
+    private final Random rand;
+    // Runs the first phase of planning, or null to plan every agent on the calling thread
+    private final ExecutorService executor;
+    // The planning tasks handed to the executor each tick, each plans every n-th agent
+    private final List<Callable<Void>> planTasks = new ArrayList<>();
+    // The engines of each planning task, the first are also used to plan again on the calling thread
+    private final Agent.Engines[] engines;
+    // The tick on which a head last entered each cell, and whose head it was, to catch heads meeting
+    private final int[] headTick;
+    private final int[] headAgent;
+    // Whether each agent has crashed, and whether it has eaten, on the tick being moved, indexed by id
+    private final boolean[] crashed;
+    private final boolean[] eaten;
+    private final Map<FailureCause, Integer> deaths = new EnumMap<>(FailureCause.class);
+    private int tick = 0;
+    private int aliveCount;
+    // The number of plans which clashed with the reservations and were planned again
+    private long replans = 0;
+
+    // Create a game where every agent plans on the calling thread
+    public MultiGame(int width, int height, int snakes, long seed) {
+        this(width, height, snakes, seed, null, 1);
+    }
+
+    /*
+        Create a game of the given number of snakes, placed at random from the given seed, whose
+        planning is split into the given number of tasks each tick and run by the executor.
+     */
+    public MultiGame(int width, int height, int snakes, long seed, ExecutorService executor, int parallelism) {
+        if(snakes <= 0 || snakes > width * height / 2)
+            throw new IllegalArgumentException("There must be at least one snake, and room for food for each.");
+        if(parallelism <= 0)
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        this.width = width;
+        this.rand = new Random(seed);
+        this.executor = executor;
+        board = new Grid(width, height);
+        free = new FreeCells(width * height);
+        reservations = new ReservationTable(width * height);
+        headTick = new int[width * height];
+        headAgent = new int[width * height];
+        owner = new int[width * height];
+        foodIndex = new int[width * height];
+        Arrays.fill(foodIndex, -1);
+        crashed = new boolean[snakes];
+        eaten = new boolean[snakes];
+        agents = new Agent[snakes];
+        for(int i = 0; i < snakes; i++) {
+            int cell = free.random(rand);
+            agents[i] = new Agent(i, Snake.onSharedBoard(cell % width, cell / width, width, height), width);
+            occupy(agents[i], 0);
+        }
+        aliveCount = snakes;
+        foods = new int[snakes];
+        Arrays.fill(foods, Snake.NONE);
+        for(int i = 0; i < snakes; i++)
+            placeFood(i);
+        engines = new Agent.Engines[executor == null ? 1 : parallelism];
+        for(int task = 0; task < engines.length; task++)
+            engines[task] = new Agent.Engines(board);
+        for(int task = 0; task < parallelism; task++) {
+            int first = task;
+            Agent.Engines taskEngines = engines[task % engines.length];
+            planTasks.add(() -> {
+                for(int i = first; i < agents.length; i += parallelism) {
+                    if(agents[i].isAlive())
+                        agents[i].plan(foods, reservations, taskEngines);
+                }
+                return null;
+            });
+        }
+    }
+
+    // Run one tick of the game, planning for every snake and then moving them all
+    public void step() {
+        if(aliveCount == 0)
+            return;
+        board.setTime(tick);
+        reservations.setNow(tick);
+        planAll();
+        reservations.clear();
+        for(Agent agent : agents) {
+            if(!agent.isAlive())
+                continue;
+            if(agent.needsReplan(reservations, RESERVATION_WINDOW)) {
+                agent.plan(foods, reservations, engines[0]);
+                replans++;
+            }
+            agent.reserve(reservations, RESERVATION_WINDOW);
+        }
+        move();
+    }
+
+    // Plan for every living agent, spread over the executor if there is one
+    private void planAll() {
+        if(executor == null) {
+            for(Agent agent : agents) {
+                if(agent.isAlive())
+                    agent.plan(foods, reservations, engines[0]);
+            }
+            return;
+        }
+        try {
+            for(Future<Void> future : executor.invokeAll(planTasks))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while planning.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Planning failed.", e.getCause());
+        }
+    }
+
+    /*
+        Move every living snake at once. The cells the tails leave are freed before any head is
+        checked, so a head may follow another snake's tail. Heads which meet in the same cell crash
+        first, and only the snakes left eat, so a snake never takes food it dies on. Snakes which eat
+        grow before the heads are checked against the bodies, so a head which moves into a tail that
+        stays where it is runs into it. A snake which eats has its head on food, which is never on a
+        body, so it can only crash into another head, and eating never depends on another snake's meal.
+     */
+    private void move() {
+        List<Agent> moved = new ArrayList<>(aliveCount);
+        for(Agent agent : agents) {
+            if(!agent.isAlive())
+                continue;
+            Direction direction = agent.nextMove();
+            if(direction == null) {
+                die(agent, FailureCause.NO_PATH, 0);
+                continue;
+            }
+            Snake snake = agent.getSnake();
+            snake.move(direction);
+            if(snake.isOutOfBounds()) {
+                die(agent, FailureCause.OUT_OF_BOUNDS, 0);
+                continue;
+            }
+            if(snake.getVacated() != Snake.NONE) {
+                board.setWall(snake.getVacated(), false);
+                free.add(snake.getVacated());
+            }
+            // The snake's own cells are still walls, and the other snakes' heads are checked once they have all moved
+            int head = snake.cellAt(0);
+            if(board.isWall(head) && owner[head] == agent.getId())
+                die(agent, FailureCause.SELF_COLLISION, 1);
+            else
+                moved.add(agent);
+        }
+        tick++;
+        for(Agent agent : moved) {
+            crashed[agent.getId()] = false;
+            eaten[agent.getId()] = false;
+        }
+        // Check every head against the heads checked before it
+        for(Agent agent : moved) {
+            int head = agent.getSnake().cellAt(0);
+            if(headTick[head] == tick) {
+                crashed[agent.getId()] = true;
+                crashed[headAgent[head]] = true;
+            } else {
+                headTick[head] = tick;
+                headAgent[head] = agent.getId();
+            }
+        }
+        for(Agent agent : moved) {
+            if(crashed[agent.getId()])
+                continue;
+            int food = foodAt(agent.getSnake().cellAt(0));
+            if(food < 0)
+                continue;
+            int length = agent.getSnake().getLength();
+            agent.getSnake().grow();
+            // If the snake grew straight away its tail is back in the cell it left
+            if(agent.getSnake().getLength() > length) {
+                int tail = agent.getSnake().getTail();
+                board.setWall(tail, true);
+                owner[tail] = agent.getId();
+                free.remove(tail);
+            }
+            foodIndex[foods[food]] = -1;
+            foods[food] = Snake.NONE;
+            eaten[agent.getId()] = true;
+        }
+        // Check every other head against the bodies, before any of the crashed snakes are removed
+        for(Agent agent : moved) {
+            if(!crashed[agent.getId()] && board.isWall(agent.getSnake().cellAt(0)))
+                crashed[agent.getId()] = true;
+        }
+        for(Agent agent : moved) {
+            if(crashed[agent.getId()])
+                die(agent, FailureCause.SNAKE_COLLISION, 1);
+        }
+        for(Agent agent : moved) {
+            if(!agent.isAlive())
+                continue;
+            // Eating delays the tail, so every part of the body frees up a tick later
+            if(eaten[agent.getId()]) {
+                for(int part = 0; part < agent.getSnake().getLength(); part++)
+                    occupy(agent, part);
+            } else {
+                occupy(agent, 0);
+            }
+        }
+        for(int i = 0; i < foods.length; i++) {
+            if(foods[i] == Snake.NONE)
+                placeFood(i);
+        }
+    }
+
+    /*
+        Set the cell of the given part of an agent's snake as a wall on the board, which frees up on
+        the tick after its tail leaves it, as Agent.getHold allows for.
+     */
+    private void occupy(Agent agent, int part) {
+        Snake snake = agent.getSnake();
+        int cell = snake.cellAt(part);
+        board.setWallUntil(cell, tick + snake.getLength() - part + snake.getPendingGrowth() + 1);
+        owner[cell] = agent.getId();
+        free.remove(cell);
+    }
+
+    // Kill an agent, and remove its body from the board from the given part (its head may not be on the board)
+    private void die(Agent agent, FailureCause cause, int fromPart) {
+        agent.kill();
+        aliveCount--;
+        deaths.merge(cause, 1, Integer::sum);
+        Snake snake = agent.getSnake();
+        for(int part = fromPart; part < snake.getLength(); part++) {
+            int cell = snake.cellAt(part);
+            board.setWall(cell, false);
+            free.add(cell);
+        }
+    }
+
+    // Find the piece of food in the given cell, or -1 if there is none
+    private int foodAt(int cell) {
+        return foodIndex[cell];
+    }
+
+    /*
+        Place the given piece of food in a random free cell without food, or leave it as Snake.NONE if
+        there is none. As there are more free cells than pieces of food, a cell without food is always
+        found, and while the board has room to spare the first try almost always finds one.
+     */
+    private void placeFood(int food) {
+        if(free.size() <= foods.length)
+            return;
+        int cell;
+        do {
+            cell = free.random(rand);
+        } while(foodAt(cell) >= 0);
+        foods[food] = cell;
+        foodIndex[cell] = food;
+    }
+
+    // Check whether every snake is dead
+    public boolean over() {
+        return aliveCount == 0;
+    }
+
+    // Getter for the number of ticks run
+    public int getTick() {
+        return tick;
+    }
+
+    // Getter for the number of snakes still alive
+    public int getAliveCount() {
+        return aliveCount;
+    }
+
+    // Getter for the number of snakes in the game, alive or dead
+    public int getSnakeCount() {
+        return agents.length;
+    }
+
+    public Snake getSnake(int index) {
+        return agents[index].getSnake();
+    }
+
+    public boolean isAlive(int index) {
+        return agents[index].isAlive();
+    }
+
+    // Getter for the number of snakes which died of each cause
+    public Map<FailureCause, Integer> getDeaths() {
+        return deaths;
+    }
+
+    // Getter for the number of plans which clashed with the reservations and were planned again
+    public long getReplans() {
+        return replans;
+    }
+
+    // Get the statistics of every agent's searches together
+    public GameStats getStats() {
+        GameStats stats = new GameStats();
+        for(Agent agent : agents)
+            stats.merge(agent.getStats());
+        return stats;
+    }
+}
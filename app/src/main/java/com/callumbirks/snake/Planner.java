@@ -0,0 +1,101 @@
+package com.callumbirks.snake;
+
+import com.callumbirks.pathfinder.Algorithm;
+import com.callumbirks.pathfinder.DistanceFlood;
+import com.callumbirks.pathfinder.HamiltonianCycle;
+import com.callumbirks.pathfinder.CellPath;
+import com.callumbirks.pathfinder.Pathfinder;
+import com.callumbirks.pathfinder.SearchStats;
+
+/*
+    Plans the snake's path with a pathfinder, heading for the food if it can be reached, and otherwise
+    for the farthest cell a flood from the head can reach. The walls are kept by the owner of the
+    planner, either incrementally as the snake moves (see Game.updateWalls) or rebuilt from a snapshot
+    (see AsyncPlanner).
+ */
+class Planner {
+    // A planned path, and the cell it leads to
+    record Plan(int targetX, int targetY, CellPath path) {}
+
+    private final int width;
+    private final Pathfinder pathfinder;
+    // Floods from the head to choose a fallback target when the food can not be reached
+    private final DistanceFlood flood;
+    // The statistics of the searches made, or null if they are not recorded
+    private GameStats stats;
+
+    Planner(int width, int height, Algorithm algorithm, GameStats stats) {
+        this.width = width;
+        this.stats = stats;
+        pathfinder = algorithm.create(width, height);
+        // If the pathfinder is a flood itself, its flood towards the food is reused for the fallback
+        flood = pathfinder instanceof DistanceFlood distanceFlood ? distanceFlood : new DistanceFlood(width, height);
+    }
+
+    // Setter for the statistics the searches are recorded in, or null to stop recording them
+    void setStats(GameStats stats) {
+        this.stats = stats;
+    }
+
+    // Set a wall on both the pathfinder and the flood, unless they are the same
+    void setWall(int x, int y, boolean wall) {
+        pathfinder.setWall(x, y, wall);
+        if(flood != pathfinder)
+            flood.setWall(x, y, wall);
+    }
+
+    // Set a wall which frees up at the given time, see Grid.setWallUntil
+    void setWallUntil(int x, int y, int freeTime) {
+        pathfinder.setWallUntil(x, y, freeTime);
+        if(flood != pathfinder)
+            flood.setWallUntil(x, y, freeTime);
+    }
+
+    void resetWalls() {
+        pathfinder.resetWalls();
+        if(flood != pathfinder)
+            flood.resetWalls();
+    }
+
+    /*
+        Plan from the head at the given co-ordinates. The tail is given as a cell index, with the
+        number of moves it will stay where it is, and the time is the one the body's free times are
+        relative to (see Game.updatePath).
+     */
+    Plan plan(int headX, int headY, int tail, int growth, int time, int foodX, int foodY) {
+        pathfinder.setStart(headX, headY);
+        pathfinder.setTime(time);
+        if(flood != pathfinder)
+            flood.setTime(time);
+        // The cycle planner only takes shortcuts which stay behind the tail
+        if(pathfinder instanceof HamiltonianCycle cycle)
+            cycle.setTail(tail % width, tail / width, growth);
+        // Try and pathfind food, otherwise head for the farthest cell which can be reached.
+        // We can pathfind food again when a path is available.
+        pathfinder.setEnd(foodX, foodY);
+        boolean found = pathfinder.run();
+        if(SearchStats.ENABLED && stats != null)
+            stats.record(pathfinder.getLastStats());
+        if(found)
+            return new Plan(foodX, foodY, pathfinder.getCompactPath());
+        return planFallback(headX, headY, foodX, foodY);
+    }
+
+    /*
+        Flood once from the head, and from the flood choose the cell farthest from the head as the
+        target, as heading there gives the body the longest time to move out of the way of the food.
+        If the head can not move anywhere, the plan has no path and the target stays as the food.
+     */
+    private Plan planFallback(int headX, int headY, int foodX, int foodY) {
+        if(flood != pathfinder) {
+            flood.setStart(headX, headY);
+            flood.flood();
+        }
+        if(SearchStats.ENABLED && stats != null)
+            stats.recordFallback(flood != pathfinder ? flood.getLastStats() : null);
+        int[] fallback = flood.getFarthest();
+        if(fallback == null)
+            return new Plan(foodX, foodY, null);
+        return new Plan(fallback[0], fallback[1], flood.getCompactPathTo(fallback[0], fallback[1]));
+    }
+}
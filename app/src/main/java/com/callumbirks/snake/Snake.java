@@ -1,78 +1,267 @@
 package com.callumbirks.snake;
 
+import com.callumbirks.pathfinder.Grid;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+
+/*
+    The snake's body is stored as a circular buffer of cell indices (y * width + x) from the tail to
+    the head, alongside a bitset of the cells it occupies. Moving pushes one cell at the head and
+    drops one at the tail, growing re-occupies the cell the tail last left, and checking whether a
+    cell is occupied is a single bit test, so all of these are O(1) whatever the snake's length.
+    The cells which are not occupied are also kept in a FreeCells index, so a random free cell can
+    be picked in O(1) as well. The buffer starts small and doubles when the snake outgrows it, so it
+    is only as long as the snake.
 
+    The bitset and the index are each as large as the board, so a snake on a board shared with other
+    snakes (see onSharedBoard) keeps neither, and the game tracks every snake's cells on its own board.
+ */
 public class Snake {
-    private final SnakePart head;
-    private final List<SnakePart> body;
+    // Value used when there is no cell
+    public static final int NONE = -1;
+
+    // The number of cells the body's buffer starts with room for
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int width;
+    private final int height;
+    // The cells the snake occupies as a bitset, or null on a shared board
+    private final Grid occupied;
+    // The cells of the board which the snake does not occupy, or null on a shared board
+    private final FreeCells free;
+    // The cells of the body, tail to head, in a circular buffer which is doubled when the body outgrows it
+    private int[] cells = new int[INITIAL_CAPACITY];
+    // The position of the tail in 'cells', the rest of the body follows it up to the head
+    private int tail = 0;
+    // The number of cells in the body
+    private int length = 1;
+    // Growth that could not be applied immediately, and will instead keep the tail in place on the next moves
+    private int pendingGrowth = 0;
+    // The number of moves made on the board, which is also the move on which the head entered its cell
+    private int moves = 0;
+    // The cell the tail left on the last move, or NONE if it did not leave one
+    private int vacated = NONE;
+    // The head's co-ordinates, which are kept separately as the head may leave the board
+    private int x;
+    private int y;
+    private Direction direction = Direction.RIGHT;
+    // Whether the head has moved into the body
+    private boolean collided = false;
 
-    public Snake(int x, int y) {
-        head = new SnakePart(x, y, Direction.RIGHT);
-        body = new ArrayList<>();
-        body.add(head);
+    public Snake(int x, int y, int width, int height) {
+        this(x, y, width, height, true);
+    }
+
+    private Snake(int x, int y, int width, int height, boolean tracked) {
+        this.width = width;
+        this.height = height;
+        occupied = tracked ? new Grid(width, height) : null;
+        free = tracked ? new FreeCells(width * height) : null;
+        this.x = x;
+        this.y = y;
+        cells[tail] = y * width + x;
+        occupy(cells[tail]);
+    }
+
+    /*
+        Create a snake which does not keep the cells it occupies, for a board shared with other snakes
+        whose game keeps them instead. Such a snake can not tell whether a cell is occupied, has no
+        free cells, and never marks itself as collided, so the game must check its moves itself.
+     */
+    static Snake onSharedBoard(int x, int y, int width, int height) {
+        return new Snake(x, y, width, height, false);
     }
 
     public int getX() {
-        return head.x;
+        return x;
     }
 
     public int getY() {
-        return head.y;
+        return y;
     }
 
-    public List<SnakePart> getBody(boolean includeHead) {
-        return includeHead ? body : body.subList(1, body.size());
+    public Direction getDirection() {
+        return direction;
     }
 
-    public List<SnakePart> getBody() { return getBody(true); }
+    public int getLength() {
+        return length;
+    }
 
-    public void grow() {
-        SnakePart last = body.get(body.size() - 1);
-        int newX = calculateNewPartX(last.x, last.direction);
-        int newY = calculateNewPartY(last.y, last.direction);
+    // Getter for the number of moves made on the board
+    public int getMoves() {
+        return moves;
+    }
 
-        body.add(new SnakePart(newX, newY, last.direction));
+    // Getter for the number of moves on which the tail will stay where it is, as the snake is still growing
+    public int getPendingGrowth() {
+        return pendingGrowth;
     }
 
-    private void updatePartDirections() {
-        if(!(body.size() > 1))
-            return;
-        Direction lastDirection = Direction.RIGHT;
-        for(SnakePart part : body) {
-            Direction prevDirection = part.direction;
-            if(part != head) {
-                part.direction = lastDirection;
-            }
-            lastDirection = prevDirection;
+    /*
+        Get the number of the move on which the head entered the cell of the part the given number of
+        parts behind the head. As the parts follow each other this is just the number of moves minus
+        the part, and the part leaves its cell after getLength() - part + getPendingGrowth() more moves.
+     */
+    public int enteredAt(int part) {
+        return moves - part;
+    }
+
+    // Check whether the cell at the given co-ordinates is occupied by the snake
+    public boolean occupies(int x, int y) {
+        return occupied().isInGrid(x, y) && occupied.isWall(x, y);
+    }
+
+    // Pick a uniformly random cell which the snake does not occupy, or NONE if the board is full
+    public int randomFreeCell(Random rand) {
+        occupied();
+        return free.random(rand);
+    }
+
+    // Check whether the snake occupies every cell of the board
+    public boolean fillsBoard() {
+        occupied();
+        return free.isEmpty();
+    }
+
+    // Get the occupancy bitset, throwing an IllegalStateException for a snake on a shared board, which has none
+    private Grid occupied() {
+        if(occupied == null)
+            throw new IllegalStateException("A snake on a shared board does not keep the cells it occupies.");
+        return occupied;
+    }
+
+    // Check whether the head has moved into the body
+    public boolean isCollided() {
+        return collided;
+    }
+
+    // Check whether the head has left the board
+    public boolean isOutOfBounds() {
+        return x < 0 || y < 0 || x >= width || y >= height;
+    }
+
+    // Get the cell index of the tail
+    public int getTail() {
+        return cells[tail];
+    }
+
+    // Get the cell index the tail left on the last move, or NONE if the tail stayed where it was
+    public int getVacated() {
+        return vacated;
+    }
+
+    /*
+        Get the cell index of the part the given number of parts behind the head, so 0 is the head
+        and getLength() - 1 is the tail.
+     */
+    public int cellAt(int part) {
+        return cells[(tail + length - 1 - part) % cells.length];
+    }
+
+    /*
+        Get the body as a list of SnakeParts, head first, where each part's direction is the way it
+        last moved (towards the part ahead of it). This builds the list on every call, so it is meant
+        for drawing the snake rather than for the game logic.
+     */
+    public List<SnakePart> getBody(boolean includeHead) {
+        List<SnakePart> body = new ArrayList<>(length);
+        int ahead = NONE;
+        for(int part = 0; part < length; part++) {
+            int cell = cellAt(part);
+            Direction partDirection = part == 0 ? direction : directionBetween(cell, ahead);
+            if(part > 0 || includeHead)
+                body.add(new SnakePart(cell % width, cell / width, partDirection));
+            ahead = cell;
         }
+        return body;
     }
 
-    public Direction getDirection() {
-        return head.direction;
+    public List<SnakePart> getBody() { return getBody(true); }
+
+    /*
+        Grow the snake by one part. The tail moves back into the cell it left on the last move, or if
+        it did not leave one, it stays where it is on the next move instead.
+     */
+    public void grow() {
+        // The only part which can have moved into the cell the tail left is the head
+        if(vacated != NONE && vacated != cellAt(0)) {
+            ensureCapacity(length + 1);
+            tail = (tail + cells.length - 1) % cells.length;
+            cells[tail] = vacated;
+            occupy(vacated);
+            length++;
+            vacated = NONE;
+        } else {
+            pendingGrowth++;
+        }
     }
 
+    /*
+        Move the head one cell in the given direction, and the tail forward by one (unless there is
+        growth pending). If the head leaves the board only its co-ordinates change, and if it moves
+        into the body the snake is marked as collided.
+     */
     public void move(Direction direction) {
-        updatePartDirections();
-        head.direction = direction;
-        for(SnakePart part : body) {
-            part.move();
+        this.direction = direction;
+        switch(direction) {
+            case UP -> y -= 1;
+            case RIGHT -> x += 1;
+            case DOWN -> y += 1;
+            case LEFT -> x -= 1;
+        }
+        if(isOutOfBounds())
+            return;
+        moves++;
+        if(pendingGrowth > 0) {
+            pendingGrowth--;
+            ensureCapacity(length + 1);
+            length++;
+            vacated = NONE;
+        } else {
+            vacated = cells[tail];
+            if(occupied != null) {
+                occupied.setWall(vacated, false);
+                free.add(vacated);
+            }
+            tail = (tail + 1) % cells.length;
         }
+        int cell = y * width + x;
+        if(occupied != null && occupied.isWall(cell))
+            collided = true;
+        cells[(tail + length - 1) % cells.length] = cell;
+        occupy(cell);
+    }
+
+    // Mark the given cell as occupied by the snake
+    private void occupy(int cell) {
+        if(occupied == null)
+            return;
+        occupied.setWall(cell, true);
+        free.remove(cell);
     }
 
-    private int calculateNewPartX(int x, Direction direction) {
-        return switch(direction) {
-            case UP, DOWN -> x;
-            case RIGHT -> x - 1;
-            case LEFT -> x + 1;
-        };
+    // Make room in the buffer for the given number of parts, unwrapping the body to start at the front
+    private void ensureCapacity(int parts) {
+        if(parts <= cells.length)
+            return;
+        int[] grown = new int[Math.max(parts, cells.length * 2)];
+        for(int i = 0; i < length; i++)
+            grown[i] = cells[(tail + i) % cells.length];
+        cells = grown;
+        tail = 0;
     }
 
-    private int calculateNewPartY(int y, Direction direction) {
-        return switch(direction) {
-            case LEFT, RIGHT -> y;
-            case UP -> y + 1;
-            case DOWN -> y - 1;
-        };
+    // Calculate the direction of the move from one cell to an adjacent cell
+    private Direction directionBetween(int from, int to) {
+        if(to == from - width)
+            return Direction.UP;
+        if(to == from + 1)
+            return Direction.RIGHT;
+        if(to == from + width)
+            return Direction.DOWN;
+        return Direction.LEFT;
     }
 }
@@ -10,13 +10,4 @@ public class SnakePart {
         this.y = y;
         this.direction = direction;
     }
-
-    public void move() {
-        switch(direction) {
-            case UP -> y -= 1;
-            case RIGHT -> x += 1;
-            case DOWN -> y += 1;
-            case LEFT -> x -= 1;
-        }
-    }
 }
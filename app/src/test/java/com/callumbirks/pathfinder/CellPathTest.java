@@ -0,0 +1,83 @@
+package com.callumbirks.pathfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CellPathTest {
+    private static final int WIDTH = 1000;
+
+    // A path far into a large grid, whose bitset only spans the words from its smallest index to its largest
+    private static CellPath farPath() {
+        int[] cells = new int[20];
+        for(int i = 0; i < 10; i++)
+            cells[i] = 500 * WIDTH + 300 + i;
+        for(int i = 10; i < 20; i++)
+            cells[i] = cells[i - 1] + WIDTH;
+        return new CellPath(cells, WIDTH);
+    }
+
+    @Test
+    void containsOnlyCellsOnThePath() {
+        CellPath path = farPath();
+        boolean[] on = new boolean[WIDTH * WIDTH];
+        for(int i = 0; i < path.size(); i++)
+            on[path.cellAt(i)] = true;
+        int first = path.cellAt(0);
+        int last = path.cellAt(path.size() - 1);
+        // Every cell in and around the span of the bitset, including those in its first and last words
+        for(int index = first - 200; index <= last + 200; index++)
+            assertEquals(on[index], path.contains(index));
+    }
+
+    @Test
+    void containsIsFalseOutsideTheGrid() {
+        CellPath path = farPath();
+        assertFalse(path.contains(-1));
+        assertFalse(path.contains(Integer.MIN_VALUE));
+        assertFalse(path.contains(Integer.MAX_VALUE));
+        assertFalse(path.contains(0));
+        // Negative indices which share their low bits with a cell on the path
+        assertFalse(path.contains(path.cellAt(0) + Integer.MIN_VALUE));
+        assertTrue(path.contains(300, 500));
+        assertFalse(path.contains(-1, 501));
+        assertFalse(path.contains(WIDTH + 300, 499));
+    }
+
+    @Test
+    void emptyPathContainsNothing() {
+        CellPath path = new CellPath(new int[0], WIDTH);
+        assertEquals(0, path.size());
+        assertFalse(path.contains(0));
+        assertFalse(path.contains(-1));
+    }
+
+    @Test
+    void movesFollowTheCells() {
+        CellPath path = new CellPath(new int[] {5, 6, 16, 15, 5}, 10);
+        assertEquals(CellPath.RIGHT, path.moveAt(0));
+        assertEquals(CellPath.DOWN, path.moveAt(1));
+        assertEquals(CellPath.LEFT, path.moveAt(2));
+        assertEquals(CellPath.UP, path.moveAt(3));
+        // The end of one row is not next to the start of the next
+        CellPath wrapped = new CellPath(new int[] {9, 10}, 10);
+        assertThrows(IllegalStateException.class, () -> wrapped.moveAt(0));
+    }
+
+    @Test
+    void nodesRoundTrip() {
+        CellPath path = farPath();
+        List<Node> nodes = path.toNodes();
+        assertEquals(path.size(), nodes.size());
+        assertEquals(300, nodes.get(0).getX());
+        assertEquals(500, nodes.get(0).getY());
+        CellPath copy = CellPath.of(nodes, WIDTH);
+        for(int i = 0; i < path.size(); i++)
+            assertEquals(path.cellAt(i), copy.cellAt(i));
+    }
+}
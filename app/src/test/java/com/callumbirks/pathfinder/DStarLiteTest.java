@@ -0,0 +1,109 @@
+package com.callumbirks.pathfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.callumbirks.pathfinder.PathAssertions.assertValidPath;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    D* Lite repairs its previous solution between runs, so it is checked against a GridAStar which
+    searches afresh every time, over a series of runs on the same board where walls are set and
+    reset, the start cell moves along the path found and the end cell changes now and then.
+ */
+class DStarLiteTest {
+    private static final int WIDTH = 24;
+    private static final int HEIGHT = 16;
+
+    // Set the same wall on both engines
+    private static void setWall(DStarLite planner, GridAStar reference, int x, int y, boolean wall) {
+        planner.setWall(x, y, wall);
+        reference.setWall(x, y, wall);
+    }
+
+    /*
+        Run a series of changes and runs on a board from the given seed, checking every run against
+        the reference. Returns the number of runs which found a path.
+     */
+    private static int crossCheck(DStarLite planner, long seed, int runs) {
+        Random rand = new Random(seed);
+        GridAStar reference = new GridAStar(WIDTH, HEIGHT);
+        for(int i = 0; i < WIDTH * HEIGHT / 4; i++)
+            setWall(planner, reference, rand.nextInt(WIDTH), rand.nextInt(HEIGHT), true);
+        int startX = rand.nextInt(WIDTH);
+        int startY = rand.nextInt(HEIGHT);
+        int endX = rand.nextInt(WIDTH);
+        int endY = rand.nextInt(HEIGHT);
+        int found = 0;
+        for(int run = 0; run < runs; run++) {
+            switch(rand.nextInt(4)) {
+                // Flip a few cells
+                case 0 -> {
+                    for(int i = 0; i < 4; i++) {
+                        int x = rand.nextInt(WIDTH);
+                        int y = rand.nextInt(HEIGHT);
+                        setWall(planner, reference, x, y, !reference.isWall(x, y));
+                    }
+                }
+                // Reset every wall and set most of them again, as a game rebuilding its walls would
+                case 1 -> {
+                    boolean[] walls = new boolean[WIDTH * HEIGHT];
+                    for(int cell = 0; cell < walls.length; cell++)
+                        walls[cell] = reference.isWall(cell % WIDTH, cell / WIDTH) && rand.nextInt(8) != 0;
+                    planner.resetWalls();
+                    reference.resetWalls();
+                    for(int cell = 0; cell < walls.length; cell++) {
+                        if(walls[cell])
+                            setWall(planner, reference, cell % WIDTH, cell / WIDTH, true);
+                    }
+                }
+                // Move the end cell, which makes the planner start afresh
+                case 2 -> {
+                    endX = rand.nextInt(WIDTH);
+                    endY = rand.nextInt(HEIGHT);
+                }
+                default -> {
+                }
+            }
+            // The start and end cells are kept clear, so most runs have a path to check
+            setWall(planner, reference, startX, startY, false);
+            setWall(planner, reference, endX, endY, false);
+            planner.setStart(startX, startY);
+            planner.setEnd(endX, endY);
+            reference.setStart(startX, startY);
+            reference.setEnd(endX, endY);
+            boolean expected = reference.run();
+            assertEquals(expected, planner.run());
+            if(!expected)
+                continue;
+            found++;
+            assertEquals(reference.getPath().size(), planner.getPath().size());
+            assertValidPath(reference.getGrid(), planner.getPath(), startX, startY, endX, endY);
+            // Step the start cell a few moves along the path, as the snake's head would
+            int steps = Math.min(planner.getPath().size() - 1, 1 + rand.nextInt(3));
+            startX = planner.getPath().get(steps).getX();
+            startY = planner.getPath().get(steps).getY();
+        }
+        return found;
+    }
+
+    @Test
+    void matchesGridAStarAsWallsAndStartChange() {
+        for(long seed = 0; seed < 20; seed++) {
+            int found = crossCheck(new DStarLite(WIDTH, HEIGHT), seed, 60);
+            // Make sure the boards are not so blocked that there is nothing to compare
+            assertTrue(found > 0);
+        }
+    }
+
+    // With a key modifier limit this low, the planner starts afresh every few moves of the start cell
+    @Test
+    void matchesGridAStarAcrossKeyModifierRestarts() {
+        for(long seed = 0; seed < 20; seed++) {
+            int found = crossCheck(new DStarLite(WIDTH, HEIGHT, 8), seed, 60);
+            assertTrue(found > 0);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.callumbirks.pathfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.callumbirks.pathfinder.PathAssertions.assertValidPath;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Runs the alternative engines against GridAStar on random boards of random sizes and densities.
+    BidirectionalAStar and JumpPointSearch must find paths of the same (shortest) length whenever
+    GridAStar finds one, while HierarchicalAStar is only near optimal, so it must find a path exactly
+    when one exists, no shorter than the shortest.
+ */
+class EngineCrossCheckTest {
+    private static final int BOARDS = 40;
+    private static final int QUERIES = 40;
+
+    // An engine under test alongside the reference, with the same walls
+    private record Pair(GridPathfinder engine, GridAStar reference) {
+        void setWall(int x, int y, boolean wall) {
+            engine.setWall(x, y, wall);
+            reference.setWall(x, y, wall);
+        }
+    }
+
+    // Lay out a random board of walls on both engines, with between 5% and 35% of the cells walls
+    private static void randomWalls(Pair pair, int width, int height, Random rand) {
+        int percent = 5 + rand.nextInt(31);
+        for(int y = 0; y < height; y++) {
+            for(int x = 0; x < width; x++) {
+                if(rand.nextInt(100) < percent)
+                    pair.setWall(x, y, true);
+            }
+        }
+    }
+
+    /*
+        Run random queries between free cells, checking each against the reference, and return the
+        number which had a path. If 'optimal' is set the engine's paths must be as short as the
+        reference's, otherwise only no shorter.
+     */
+    private static int runQueries(Pair pair, int width, int height, Random rand, boolean optimal) {
+        int found = 0;
+        for(int query = 0; query < QUERIES; query++) {
+            int startX = rand.nextInt(width);
+            int startY = rand.nextInt(height);
+            int endX = rand.nextInt(width);
+            int endY = rand.nextInt(height);
+            if(pair.reference().isWall(startX, startY) || pair.reference().isWall(endX, endY))
+                continue;
+            pair.engine().setStart(startX, startY);
+            pair.engine().setEnd(endX, endY);
+            pair.reference().setStart(startX, startY);
+            pair.reference().setEnd(endX, endY);
+            boolean expected = pair.reference().run();
+            assertEquals(expected, pair.engine().run());
+            if(!expected)
+                continue;
+            found++;
+            int shortest = pair.reference().getPath().size();
+            if(optimal)
+                assertEquals(shortest, pair.engine().getPath().size());
+            else
+                assertTrue(pair.engine().getPath().size() >= shortest);
+            assertValidPath(pair.reference().getGrid(), pair.engine().getPath(), startX, startY, endX, endY);
+        }
+        return found;
+    }
+
+    // Cross-check engines from the given factory on BOARDS random boards, returning the number of queries with a path
+    private static int crossCheck(long seed, EngineFactory factory, boolean optimal) {
+        Random rand = new Random(seed);
+        int found = 0;
+        for(int board = 0; board < BOARDS; board++) {
+            int width = 4 + rand.nextInt(45);
+            int height = 4 + rand.nextInt(30);
+            Pair pair = new Pair(factory.create(width, height), new GridAStar(width, height));
+            randomWalls(pair, width, height, rand);
+            found += runQueries(pair, width, height, rand, optimal);
+        }
+        return found;
+    }
+
+    private interface EngineFactory {
+        GridPathfinder create(int width, int height);
+    }
+
+    @Test
+    void bidirectionalFindsShortestPaths() {
+        assertTrue(crossCheck(1, BidirectionalAStar::new, true) > 0);
+    }
+
+    @Test
+    void jumpPointSearchFindsShortestPaths() {
+        assertTrue(crossCheck(2, JumpPointSearch::new, true) > 0);
+    }
+
+    // With reservations set JumpPointSearch can not jump, so it must search exactly as GridAStar does
+    @Test
+    void jumpPointSearchHonoursReservations() {
+        Random rand = new Random(6);
+        int found = 0;
+        for(int board = 0; board < BOARDS; board++) {
+            int width = 4 + rand.nextInt(45);
+            int height = 4 + rand.nextInt(30);
+            Pair pair = new Pair(new JumpPointSearch(width, height), new GridAStar(width, height));
+            randomWalls(pair, width, height, rand);
+            ReservationTable reservations = new ReservationTable(width * height);
+            for(int i = 0; i < width * height / 8; i++) {
+                int from = rand.nextInt(20);
+                reservations.reserve(rand.nextInt(width * height), from, from + 1 + rand.nextInt(10), 1);
+            }
+            pair.engine().setReservations(reservations, 0);
+            pair.reference().setReservations(reservations, 0);
+            found += runQueries(pair, width, height, rand, true);
+            List<Node> path = pair.engine().getPath();
+            if(path == null)
+                continue;
+            for(int depth = 1; depth < path.size(); depth++)
+                assertFalse(reservations.isReserved(path.get(depth).getY() * width + path.get(depth).getX(), depth, 0));
+        }
+        assertTrue(found > 0);
+    }
+
+    @Test
+    void hierarchicalFindsPathWheneverOneExists() {
+        assertTrue(crossCheck(3, HierarchicalAStar::new, false) > 0);
+    }
+
+    // Small clusters put many cluster borders across every path
+    @Test
+    void hierarchicalWithSmallClustersFindsPathWheneverOneExists() {
+        assertTrue(crossCheck(4, (width, height) -> new HierarchicalAStar(new Grid(width, height), 3), false) > 0);
+    }
+
+    // Walls changed between runs have to be seen by the engines which keep state of the board, see HierarchicalAStar.rebuild
+    @Test
+    void hierarchicalSeesWallsChangedBetweenRuns() {
+        Random rand = new Random(5);
+        for(int board = 0; board < BOARDS / 4; board++) {
+            int width = 8 + rand.nextInt(40);
+            int height = 8 + rand.nextInt(25);
+            Pair pair = new Pair(new HierarchicalAStar(width, height), new GridAStar(width, height));
+            randomWalls(pair, width, height, rand);
+            for(int round = 0; round < 6; round++) {
+                for(int i = 0; i < width * height / 10; i++) {
+                    int x = rand.nextInt(width);
+                    int y = rand.nextInt(height);
+                    pair.setWall(x, y, !pair.reference().isWall(x, y));
+                }
+                runQueries(pair, width, height, rand, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.callumbirks.pathfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexedHeapTest {
+    @Test
+    void decreaseKeyMovesCellToTop() {
+        IndexedHeap heap = new IndexedHeap(10);
+        for(int cell = 0; cell < 10; cell++)
+            heap.update(cell, 100 + cell);
+        heap.update(7, 5);
+        assertEquals(10, heap.size());
+        assertEquals(7, heap.peek());
+        assertEquals(5, heap.peekKey());
+        heap.update(3, 4);
+        assertEquals(3, heap.poll());
+        assertEquals(7, heap.poll());
+        assertEquals(0, heap.poll());
+    }
+
+    @Test
+    void increaseKeyMovesCellDown() {
+        IndexedHeap heap = new IndexedHeap(10);
+        for(int cell = 0; cell < 10; cell++)
+            heap.update(cell, cell);
+        heap.update(0, 50);
+        for(int cell = 1; cell < 10; cell++)
+            assertEquals(cell, heap.poll());
+        assertEquals(0, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    // Random updates and removes, checked against an array of keys, then polled in key order
+    @Test
+    void matchesKeyArray() {
+        int capacity = 300;
+        IndexedHeap heap = new IndexedHeap(capacity);
+        long[] keys = new long[capacity];
+        boolean[] present = new boolean[capacity];
+        Random rand = new Random(1);
+        for(int round = 0; round < 20; round++) {
+            for(int i = 0; i < 2000; i++) {
+                int cell = rand.nextInt(capacity);
+                if(rand.nextInt(4) == 0) {
+                    heap.remove(cell);
+                    present[cell] = false;
+                } else {
+                    keys[cell] = rand.nextInt(1000);
+                    present[cell] = true;
+                    heap.update(cell, keys[cell]);
+                }
+                assertEquals(present[cell], heap.contains(cell));
+            }
+            long last = Long.MIN_VALUE;
+            while(!heap.isEmpty()) {
+                int cell = heap.peek();
+                assertTrue(present[cell]);
+                assertEquals(keys[cell], heap.getKey(cell));
+                assertEquals(cell, heap.poll());
+                assertTrue(keys[cell] >= last);
+                last = keys[cell];
+                present[cell] = false;
+            }
+            for(int cell = 0; cell < capacity; cell++)
+                assertFalse(present[cell]);
+        }
+    }
+
+    @Test
+    void clearEmptiesHeap() {
+        IndexedHeap heap = new IndexedHeap(4);
+        heap.update(1, 1);
+        heap.update(2, 2);
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(1));
+        assertThrows(IllegalStateException.class, heap::peek);
+        heap.update(2, 7);
+        assertEquals(2, heap.poll());
+    }
+}
@@ -0,0 +1,60 @@
+package com.callumbirks.pathfinder;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    A 9x9 board split by a wall down column 4, except for a gap in the bottom row, so the cells
+    either side of the top of the wall are 2 apart by Manhattan distance but 18 moves apart.
+ */
+class LandmarkHeuristicTest {
+    private static final int SIZE = 9;
+    private static final int LEFT = 3;
+    private static final int RIGHT = 5;
+
+    // Give the search a heuristic which is rebuilt after every added wall, and search across the top of the board
+    private static LandmarkHeuristic heuristic(GridAStar search) {
+        LandmarkHeuristic heuristic = new LandmarkHeuristic(search.getGrid(), 4, 1);
+        search.setHeuristic(heuristic);
+        search.setStart(LEFT, 0);
+        search.setEnd(RIGHT, 0);
+        return heuristic;
+    }
+
+    // Build the wall, freeing up at the given time, or never if it is Grid.NEVER
+    private static void wall(GridAStar search, int freeTime) {
+        for(int y = 0; y < SIZE - 1; y++) {
+            if(freeTime == Grid.NEVER)
+                search.setWall(4, y, true);
+            else
+                search.setWallUntil(4, y, freeTime);
+        }
+    }
+
+    @Test
+    void permanentWallsTightenEstimate() {
+        GridAStar search = new GridAStar(SIZE, SIZE);
+        LandmarkHeuristic heuristic = heuristic(search);
+        assertTrue(search.run());
+        assertEquals(2, heuristic.estimate(LEFT, RIGHT));
+        // The walls are counted before the next search, which rebuilds the tables around them
+        wall(search, Grid.NEVER);
+        assertTrue(search.run());
+        assertEquals(19, search.getPath().size());
+        assertTrue(heuristic.estimate(LEFT, RIGHT) > 2);
+    }
+
+    // Timed walls are left out of the tables, so the estimate stays admissible once they have freed up
+    @Test
+    void timedWallsAreIgnored() {
+        GridAStar search = new GridAStar(SIZE, SIZE);
+        LandmarkHeuristic heuristic = heuristic(search);
+        assertTrue(search.run());
+        wall(search, 1);
+        assertTrue(search.run());
+        assertEquals(3, search.getPath().size());
+        assertEquals(2, heuristic.estimate(LEFT, RIGHT));
+    }
+}
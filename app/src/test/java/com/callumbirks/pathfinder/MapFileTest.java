@@ -0,0 +1,83 @@
+package com.callumbirks.pathfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MapFileTest {
+    // Write and read back a random grid of the given size, checking every wall
+    private static void roundTrip(int width, int height, long seed) throws IOException {
+        Grid grid = new Grid(width, height);
+        Random rand = new Random(seed);
+        for(int index = 0; index < grid.getSize(); index++)
+            grid.setWall(index, rand.nextInt(4) == 0);
+        Path file = Files.createTempFile("round-trip", ".snkm");
+        try {
+            MapFile.write(grid, file);
+            assertEquals(16 + 8L * grid.getWordCount(), Files.size(file));
+            Grid read = MapFile.read(file);
+            assertEquals(width, read.getWidth());
+            assertEquals(height, read.getHeight());
+            for(int index = 0; index < grid.getSize(); index++) {
+                assertEquals(grid.isWall(index), read.isWall(index));
+                // Free times are not stored, so every wall read never frees up
+                assertEquals(grid.isWall(index), read.isPermanentWall(index));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void roundTripsSmallGrid() throws IOException {
+        roundTrip(3, 5, 1);
+    }
+
+    // A grid whose cells are not a whole number of words, and span several pages
+    @Test
+    void roundTripsGridOverManyPages() throws IOException {
+        roundTrip(301, 97, 2);
+    }
+
+    @Test
+    void rejectsMalformedFiles() throws IOException {
+        Path file = Files.createTempFile("malformed", ".snkm");
+        try {
+            Files.write(file, new byte[8]);
+            assertThrows(IOException.class, () -> MapFile.read(file));
+            Files.write(file, header(0x12345678, MapFile.VERSION, 8, 8, 1));
+            assertThrows(IOException.class, () -> MapFile.read(file));
+            Files.write(file, header(MapFile.MAGIC, MapFile.VERSION + 1, 8, 8, 1));
+            assertThrows(IOException.class, () -> MapFile.read(file));
+            Files.write(file, header(MapFile.MAGIC, MapFile.VERSION, -8, 8, 1));
+            assertThrows(IOException.class, () -> MapFile.read(file));
+            // 8x16 cells need two words
+            Files.write(file, header(MapFile.MAGIC, MapFile.VERSION, 8, 16, 1));
+            assertThrows(IOException.class, () -> MapFile.read(file));
+            Files.write(file, header(MapFile.MAGIC, MapFile.VERSION, 8, 8, 1));
+            Grid grid = MapFile.read(file);
+            assertTrue(grid.isWall(0, 0));
+            assertFalse(grid.isWall(1, 0));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // The bytes of a map file with the given header and the given number of words, with only the first bit set
+    private static byte[] header(int magic, int version, int width, int height, int words) {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + 8 * words).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(magic).putInt(version).putInt(width).putInt(height);
+        buffer.putLong(1);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,83 @@
+package com.callumbirks.pathfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MovingAiFormatTest {
+    private static BufferedReader reader(String text) {
+        return new BufferedReader(new StringReader(text));
+    }
+
+    @Test
+    void readsMap() throws IOException {
+        Grid grid = MovingAiFormat.readMap(reader("type octile\nheight 2\nwidth 4\nmap\n.G@T\nSOW.\n"));
+        assertEquals(4, grid.getWidth());
+        assertEquals(2, grid.getHeight());
+        StringBuilder walls = new StringBuilder();
+        for(int y = 0; y < 2; y++) {
+            for(int x = 0; x < 4; x++)
+                walls.append(grid.isWall(x, y) ? '#' : '.');
+        }
+        assertEquals("..##.##.", walls.toString());
+    }
+
+    @Test
+    void rejectsMalformedMaps() {
+        assertThrows(IOException.class, () -> MovingAiFormat.readMap(reader("type octile\nheight 2\nwidth 4\n")));
+        assertThrows(IOException.class, () -> MovingAiFormat.readMap(reader("type octile\nheight 2\nmap\n....\n....\n")));
+        assertThrows(IOException.class, () -> MovingAiFormat.readMap(reader("height two\nwidth 4\nmap\n")));
+        assertThrows(IOException.class, () -> MovingAiFormat.readMap(reader("height 2\nwidth 4\nmap\n....\n...\n")));
+        assertThrows(IOException.class, () -> MovingAiFormat.readMap(reader("height 2\nwidth 4\nmap\n....\n")));
+    }
+
+    @Test
+    void readsScenariosSplitOnTabsOrSpaces() throws IOException {
+        List<Scenario> scenarios = MovingAiFormat.readScenarios(reader(
+                "version 1\n0\tmy map.map\t4\t2\t0\t0\t3\t1\t4.41421356\n\n1 other.map 4 2 3 1 0 0 4\n"));
+        assertEquals(2, scenarios.size());
+        assertEquals(new Scenario(0, "my map.map", 4, 2, 0, 0, 3, 1, 4.41421356), scenarios.get(0));
+        assertEquals(new Scenario(1, "other.map", 4, 2, 3, 1, 0, 0, 4), scenarios.get(1));
+    }
+
+    @Test
+    void rejectsMalformedScenarios() {
+        assertThrows(IOException.class, () -> MovingAiFormat.readScenarios(reader("0\ta.map\t4\t2\t0\t0\t3\t1\t4\n")));
+        assertThrows(IOException.class, () -> MovingAiFormat.readScenarios(reader("version 1\n0\ta.map\t4\t2\t0\t0\t3\t1\n")));
+        assertThrows(IOException.class, () -> MovingAiFormat.readScenarios(reader("version 1\n0\ta.map\t4\t2\t0\tx\t3\t1\t4\n")));
+    }
+
+    @Test
+    void mapAndScenariosRoundTrip() throws IOException {
+        Grid grid = new Grid(37, 11);
+        Random rand = new Random(1);
+        for(int index = 0; index < grid.getSize(); index++)
+            grid.setWall(index, rand.nextInt(3) == 0);
+        List<Scenario> scenarios = List.of(new Scenario(0, "a.map", 37, 11, 1, 2, 30, 9, 38.5),
+                new Scenario(3, "a b.map", 37, 11, 36, 10, 0, 0, 46));
+        Path map = Files.createTempFile("round-trip", ".map");
+        Path scen = Files.createTempFile("round-trip", ".scen");
+        try {
+            MovingAiFormat.writeMap(grid, map);
+            MovingAiFormat.writeScenarios(scenarios, scen);
+            Grid read = MovingAiFormat.readMap(map);
+            assertEquals(grid.getWidth(), read.getWidth());
+            assertEquals(grid.getHeight(), read.getHeight());
+            for(int index = 0; index < grid.getSize(); index++)
+                assertEquals(grid.isWall(index), read.isWall(index));
+            assertEquals(scenarios, MovingAiFormat.readScenarios(scen));
+        } finally {
+            Files.deleteIfExists(map);
+            Files.deleteIfExists(scen);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.callumbirks.pathfinder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checks shared by the engine tests
+final class PathAssertions {
+    private PathAssertions() {
+    }
+
+    /*
+        Check that the given path runs from the start cell to the end cell, one move at a time, and
+        never enters a cell which is a wall of the given grid.
+     */
+    static void assertValidPath(Grid grid, List<Node> path, int startX, int startY, int endX, int endY) {
+        assertFalse(path.isEmpty());
+        assertEquals(startX, path.get(0).getX());
+        assertEquals(startY, path.get(0).getY());
+        assertEquals(endX, path.get(path.size() - 1).getX());
+        assertEquals(endY, path.get(path.size() - 1).getY());
+        for(int i = 1; i < path.size(); i++) {
+            Node from = path.get(i - 1);
+            Node to = path.get(i);
+            assertEquals(1, Math.abs(from.getX() - to.getX()) + Math.abs(from.getY() - to.getY()));
+            assertTrue(grid.isInGrid(to.getX(), to.getY()));
+            assertFalse(grid.isWall(to.getX(), to.getY()));
+        }
+    }
+}
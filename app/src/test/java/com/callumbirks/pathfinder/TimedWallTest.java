@@ -0,0 +1,80 @@
+package com.callumbirks.pathfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Walls which free up, on a 5x3 board walled along the top and bottom rows except for (0, 0) and
+    (1, 0), so the only way from (0, 1) to (4, 1) is along the middle row, through (2, 1):
+
+        ..###
+        S.W.E
+        #####
+
+    The searches only take the first arrival at each cell (see GridAStar.expand), so they find the
+    path when the wall at (2, 1) has freed up by the time the middle row reaches it, but not when it
+    frees up later, even though the detour through (0, 0) and (1, 0) would reach it in time.
+ */
+class TimedWallTest {
+    // Lay out the board on the given engine, with the wall at (2, 1) freeing up at the given time
+    private static <T extends GridPathfinder> T board(T pathfinder, int freeTime) {
+        for(int x = 0; x < 5; x++) {
+            if(x >= 2)
+                pathfinder.setWall(x, 0, true);
+            pathfinder.setWall(x, 2, true);
+        }
+        pathfinder.setWallUntil(2, 1, freeTime);
+        pathfinder.setStart(0, 1);
+        pathfinder.setEnd(4, 1);
+        return pathfinder;
+    }
+
+    @Test
+    void findsPathThroughWallWhichHasFreedUpWhenReached() {
+        GridAStar search = board(new GridAStar(5, 3), 2);
+        assertTrue(search.run());
+        List<Node> path = search.getPath();
+        assertEquals(5, path.size());
+        for(int x = 0; x < 5; x++) {
+            assertEquals(x, path.get(x).getX());
+            assertEquals(1, path.get(x).getY());
+        }
+    }
+
+    @Test
+    void treatsWallAsBlockedWhenReachedBeforeItFreesUp() {
+        assertFalse(board(new GridAStar(5, 3), 3).run());
+    }
+
+    // The detour (0, 1) -> (0, 0) -> (1, 0) -> (1, 1) -> (2, 1) reaches the wall at time 4, as it frees up
+    @Test
+    void missesPathWhichWaitsForWallByDetouring() {
+        assertFalse(board(new GridAStar(5, 3), 4).run());
+        DistanceFlood flood = board(new DistanceFlood(5, 3), 4);
+        flood.flood();
+        assertEquals(-1, flood.getDistance(4, 1));
+        assertNull(flood.getPathTo(4, 1));
+    }
+
+    @Test
+    void findsDetourOnceTimeHasPassed() {
+        GridAStar search = board(new GridAStar(5, 3), 4);
+        search.setTime(2);
+        assertTrue(search.run());
+        assertEquals(5, search.getPath().size());
+    }
+
+    @Test
+    void floodMatchesSearchWhenWallHasFreedUp() {
+        DistanceFlood flood = board(new DistanceFlood(5, 3), 2);
+        flood.flood();
+        assertEquals(4, flood.getDistance(4, 1));
+        assertEquals(2, flood.getDistance(1, 0));
+    }
+}
@@ -0,0 +1,70 @@
+package com.callumbirks.snake;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FreeCellsTest {
+    // Random adds and removes, checked against an array of which cells are free
+    @Test
+    void matchesFreeArray() {
+        int size = 200;
+        FreeCells cells = new FreeCells(size);
+        boolean[] free = new boolean[size];
+        int count = size;
+        Arrays.fill(free, true);
+        Random rand = new Random(1);
+        for(int i = 0; i < 20000; i++) {
+            int cell = rand.nextInt(size);
+            if(rand.nextBoolean()) {
+                cells.add(cell);
+                count += free[cell] ? 0 : 1;
+                free[cell] = true;
+            } else {
+                cells.remove(cell);
+                count -= free[cell] ? 1 : 0;
+                free[cell] = false;
+            }
+            assertEquals(count, cells.size());
+            assertEquals(free[cell], cells.contains(cell));
+            int random = cells.random(rand);
+            if(count == 0)
+                assertEquals(FreeCells.NONE, random);
+            else
+                assertTrue(free[random]);
+        }
+        for(int cell = 0; cell < size; cell++)
+            assertEquals(free[cell], cells.contains(cell));
+    }
+
+    // Every free cell is picked in time, and only the free cells
+    @Test
+    void randomPicksEveryFreeCell() {
+        FreeCells cells = new FreeCells(10);
+        for(int cell = 0; cell < 10; cell += 2)
+            cells.remove(cell);
+        boolean[] picked = new boolean[10];
+        Random rand = new Random(2);
+        for(int i = 0; i < 1000; i++)
+            picked[cells.random(rand)] = true;
+        for(int cell = 0; cell < 10; cell++)
+            assertEquals(cell % 2 == 1, picked[cell]);
+    }
+
+    @Test
+    void fullBoardHasNoFreeCell() {
+        FreeCells cells = new FreeCells(3);
+        for(int cell = 0; cell < 3; cell++)
+            cells.remove(cell);
+        assertTrue(cells.isEmpty());
+        assertEquals(FreeCells.NONE, cells.random(new Random(3)));
+        cells.add(1);
+        assertFalse(cells.isEmpty());
+        assertEquals(1, cells.random(new Random(3)));
+    }
+}
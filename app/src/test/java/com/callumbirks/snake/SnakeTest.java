@@ -0,0 +1,166 @@
+package com.callumbirks.snake;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Drives a snake round a cycle through every cell of a 10x10 board, so it never runs into itself,
+    and checks its body against a deque of cells after every move and growth. The snake outgrows the
+    first few sizes of its buffer, and its tail wraps round the end of the buffer many times.
+ */
+class SnakeTest {
+    private static final int SIZE = 10;
+
+    // The direction to move from the given cell along a cycle through every cell of the board
+    private static Direction cycle(int x, int y) {
+        if(x == 0)
+            return y == 0 ? Direction.RIGHT : Direction.UP;
+        if(y % 2 == 0)
+            return x < SIZE - 1 ? Direction.RIGHT : Direction.DOWN;
+        if(x > 1)
+            return Direction.LEFT;
+        return y < SIZE - 1 ? Direction.DOWN : Direction.LEFT;
+    }
+
+    // Check the snake's body, head first, against the expected cells
+    private static void assertBody(Snake snake, Deque<Integer> expected) {
+        assertEquals(expected.size(), snake.getLength());
+        Iterator<Integer> cells = expected.iterator();
+        for(int part = 0; part < snake.getLength(); part++)
+            assertEquals((long) cells.next(), snake.cellAt(part));
+        assertEquals((long) expected.peekLast(), snake.getTail());
+        for(int cell = 0; cell < SIZE * SIZE; cell++)
+            assertEquals(expected.contains(cell), snake.occupies(cell % SIZE, cell / SIZE));
+    }
+
+    // Move the snake round the cycle, growing it on every n-th move until it reaches the given length
+    private static void drive(Snake snake, int moves, int every, int maxLength) {
+        Deque<Integer> expected = new ArrayDeque<>();
+        expected.add(snake.cellAt(0));
+        int pending = 0;
+        int vacated = Snake.NONE;
+        for(int move = 1; move <= moves; move++) {
+            snake.move(cycle(snake.getX(), snake.getY()));
+            expected.addFirst(snake.getY() * SIZE + snake.getX());
+            if(pending > 0) {
+                pending--;
+                vacated = Snake.NONE;
+            } else {
+                vacated = expected.removeLast();
+            }
+            assertEquals(vacated, snake.getVacated());
+            assertEquals(move, snake.getMoves());
+            if(move % every == 0 && expected.size() + pending < maxLength) {
+                snake.grow();
+                if(vacated != Snake.NONE && vacated != expected.peekFirst()) {
+                    expected.addLast(vacated);
+                    vacated = Snake.NONE;
+                } else {
+                    pending++;
+                }
+            }
+            assertEquals(pending, snake.getPendingGrowth());
+            assertFalse(snake.isCollided());
+            assertBody(snake, expected);
+        }
+    }
+
+    @Test
+    void bodyGrowsPastItsBuffer() {
+        Snake snake = new Snake(0, 0, SIZE, SIZE);
+        drive(snake, 300, 3, 70);
+        assertEquals(70, snake.getLength());
+    }
+
+    // A snake which never grows past its first buffer wraps its tail round the end of it on every lap
+    @Test
+    void bodyWrapsRoundItsBuffer() {
+        Snake snake = new Snake(0, 0, SIZE, SIZE);
+        drive(snake, 500, 1, 11);
+        assertEquals(11, snake.getLength());
+    }
+
+    // Growing on every move leaves growth pending, as the tail has not left a cell to move back into
+    @Test
+    void growthOnEveryMoveIsPending() {
+        Snake snake = new Snake(0, 0, SIZE, SIZE);
+        snake.grow();
+        snake.grow();
+        assertEquals(1, snake.getLength());
+        assertEquals(2, snake.getPendingGrowth());
+        snake.move(Direction.RIGHT);
+        snake.move(Direction.RIGHT);
+        snake.move(Direction.RIGHT);
+        assertEquals(3, snake.getLength());
+        assertEquals(0, snake.getPendingGrowth());
+        assertEquals(2, snake.cellAt(1));
+        assertEquals(1, snake.getTail());
+    }
+
+    @Test
+    void enteredAtCountsBackFromTheHead() {
+        Snake snake = new Snake(0, 0, SIZE, SIZE);
+        drive(snake, 40, 2, 30);
+        for(int part = 0; part < snake.getLength(); part++)
+            assertEquals(snake.getMoves() - part, snake.enteredAt(part));
+    }
+
+    @Test
+    void freeCellsAreNeverOccupied() {
+        Snake snake = new Snake(0, 0, SIZE, SIZE);
+        drive(snake, 200, 2, 90);
+        Random rand = new Random(1);
+        for(int i = 0; i < 1000; i++) {
+            int cell = snake.randomFreeCell(rand);
+            assertFalse(snake.occupies(cell % SIZE, cell / SIZE));
+        }
+        assertFalse(snake.fillsBoard());
+    }
+
+    @Test
+    void movingIntoTheBodyCollides() {
+        Snake snake = new Snake(2, 2, SIZE, SIZE);
+        for(Direction direction : new Direction[] {Direction.RIGHT, Direction.RIGHT, Direction.DOWN, Direction.LEFT}) {
+            snake.grow();
+            snake.move(direction);
+        }
+        assertFalse(snake.isCollided());
+        snake.move(Direction.UP);
+        assertTrue(snake.isCollided());
+    }
+
+    @Test
+    void leavingTheBoardOnlyMovesTheHead() {
+        Snake snake = new Snake(0, 0, SIZE, SIZE);
+        snake.move(Direction.UP);
+        assertTrue(snake.isOutOfBounds());
+        assertEquals(0, snake.getMoves());
+        assertEquals(0, snake.getTail());
+    }
+
+    // A snake on a shared board keeps its body but not the cells it occupies
+    @Test
+    void sharedBoardSnakeKeepsNoOccupancy() {
+        Snake snake = Snake.onSharedBoard(2, 2, SIZE, SIZE);
+        for(Direction direction : new Direction[] {Direction.RIGHT, Direction.RIGHT, Direction.DOWN, Direction.LEFT}) {
+            snake.grow();
+            snake.move(direction);
+        }
+        snake.move(Direction.UP);
+        assertFalse(snake.isCollided());
+        assertEquals(5, snake.getLength());
+        assertEquals(2 * SIZE + 3, snake.cellAt(0));
+        assertThrows(IllegalStateException.class, () -> snake.occupies(2, 2));
+        assertThrows(IllegalStateException.class, () -> snake.randomFreeCell(new Random(1)));
+        assertThrows(IllegalStateException.class, snake::fillsBoard);
+    }
+}